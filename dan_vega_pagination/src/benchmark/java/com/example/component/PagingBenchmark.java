@@ -0,0 +1,70 @@
+package com.example.component;
+
+import com.example.dto.PersonCursor;
+import com.example.entity.Person;
+import com.example.repository.PersonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Compares OFFSET paging with keyset paging on deep pages; run with ./gradlew pagingBenchmark
+// Lives in its own source set, so the application never runs it; page 10,000 of 50 rows needs at least
+// 500,000 people, so the task seeds a million rows first
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE) // After SampleDataLoader, which runs first so the people are there
+public class PagingBenchmark implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PagingBenchmark.class);
+
+    private static final int PAGE_SIZE = 50;
+    private static final int[] PAGES = {1, 1_000, 10_000};
+    private static final int RUNS = 20;
+
+    private final PersonRepository repository;
+
+    public PagingBenchmark(PersonRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void run(String... args) {
+        Sort sort = Sort.by("lastName", "id");
+        for (int page : PAGES) {
+            int pageIndex = page - 1;
+            // The keyset run starts from the row just before the page, found once outside the measurement
+            PersonCursor cursor = pageIndex == 0 ? null : boundary(pageIndex, sort);
+            if (pageIndex > 0 && cursor == null) {
+                log.warn("Not enough people for page {}, skipping", page);
+                continue;
+            }
+            double offsetMillis = time(() -> repository.findAll(PageRequest.of(pageIndex, PAGE_SIZE, sort)).getContent());
+            double keysetMillis = time(() -> cursor == null
+                    ? repository.findFirstByKeyset(PageRequest.of(0, PAGE_SIZE))
+                    : repository.findAfterByKeyset(cursor, PageRequest.of(0, PAGE_SIZE)));
+            log.info("Page {}: offset {} ms, keyset {} ms (mean of {} runs)",
+                    page, String.format("%.2f", offsetMillis), String.format("%.2f", keysetMillis), RUNS);
+        }
+    }
+
+    private PersonCursor boundary(int pageIndex, Sort sort) {
+        List<Person> previous = repository.findAll(PageRequest.of(pageIndex * PAGE_SIZE - 1, 1, sort)).getContent();
+        return previous.isEmpty() ? null : PersonCursor.of(previous.get(0));
+    }
+
+    private double time(Supplier<List<Person>> query) {
+        query.get(); // Warm up the statement and the buffer pool
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+    }
+}
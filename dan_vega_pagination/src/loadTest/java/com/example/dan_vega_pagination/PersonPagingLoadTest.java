@@ -0,0 +1,56 @@
+package com.example.dan_vega_pagination;
+
+import loadtest.LoadDriver;
+import loadtest.LoadSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// First pages, deep offset pages, keyset pages and searches from many concurrent clients against an embedded H2 database
+// The table is seeded with seed.rows people at startup, see application-loadtest.properties
+// Run with: ./gradlew loadTest, tuned with -Ploadtest.clients=64 -Ploadtest.mix.deep-page=50 and so on
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class PersonPagingLoadTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${seed.rows}")
+    private int rows;
+
+    @Test
+    void pagingUnderLoad() throws Exception {
+        var settings = LoadSettings.fromSystemProperties(500, 100);
+        int pages = Math.max(1, rows / PAGE_SIZE);
+
+        var driver = new LoadDriver(settings);
+        var report = driver.run(List.of(
+                new LoadDriver.Scenario("first-page", LoadSettings.weight("first-page", 40),
+                        client -> get("/api/v1/people?page=0&size=" + PAGE_SIZE)),
+                new LoadDriver.Scenario("deep-page", LoadSettings.weight("deep-page", 20),
+                        client -> get("/api/v1/people/rows?count=cached&size=" + PAGE_SIZE
+                                + "&page=" + ThreadLocalRandom.current().nextInt(pages / 2, pages))),
+                new LoadDriver.Scenario("keyset", LoadSettings.weight("keyset", 20),
+                        client -> get("/api/v1/people/keyset?size=" + PAGE_SIZE)),
+                new LoadDriver.Scenario("search", LoadSettings.weight("search", 20),
+                        client -> get("/api/v1/people/search?size=" + PAGE_SIZE
+                                + "&lastName=" + (char) ('A' + ThreadLocalRandom.current().nextInt(26))))
+        ));
+        report.print(getClass().getSimpleName(), System.out);
+        report.verify(getClass().getSimpleName(), settings, System.out); // Thresholds, then the stored baseline
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+    }
+}
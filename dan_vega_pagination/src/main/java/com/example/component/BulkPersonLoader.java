@@ -0,0 +1,148 @@
+package com.example.component;
+
+import com.example.entity.Address;
+import com.example.entity.Person;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import net.datafaker.Faker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Seeds large numbers of people: parallel Faker producers fill a small bounded queue of batches,
+// and one writer inserts each batch in its own transaction with JDBC batching, then clears the persistence context.
+// At most a few batches are in memory at any time, so the heap stays flat whatever the row count.
+// The rows raise no PersonChangedEvent each: one bulk-load event follows the load, so the caches are dropped once
+@Component
+public class BulkPersonLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkPersonLoader.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final PersonChangeListener changeListener;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int producers;
+
+    public BulkPersonLoader(
+            TransactionTemplate transactionTemplate,
+            PersonChangeListener changeListener,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${seed.batch-size:500}") int batchSize,
+            @Value("${seed.producers:4}") int producers
+    ) {
+        this.transactionTemplate = transactionTemplate;
+        this.changeListener = changeListener;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.producers = producers;
+    }
+
+    public void load(long rows) throws InterruptedException {
+        BlockingQueue<List<Person>> queue = new ArrayBlockingQueue<>(producers * 2);
+        AtomicLong unclaimed = new AtomicLong(rows);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        List<Future<?>> producerTasks = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            producerTasks.add(pool.submit(() -> produce(queue, unclaimed)));
+        }
+        changeListener.suppress(); // The writes all happen on this thread
+        try {
+            long start = System.nanoTime();
+            long written = 0;
+            long nextReport = 100_000;
+            while (written < rows) {
+                List<Person> batch = queue.poll(1, TimeUnit.SECONDS);
+                if (batch == null) {
+                    checkProducers(producerTasks);
+                    continue;
+                }
+                write(batch);
+                written += batch.size();
+                if (written >= nextReport || written == rows) {
+                    log.info("Seeded {} of {} people, {} rows/sec", written, rows, rate(written, start));
+                    nextReport += 100_000;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            changeListener.resume();
+            eventPublisher.publishEvent(PersonChangedEvent.bulkLoad()); // Also for the batches before a failure
+        }
+    }
+
+    private void produce(BlockingQueue<List<Person>> queue, AtomicLong unclaimed) {
+        Faker faker = new Faker(); // Faker is not thread safe, so each producer has its own
+        try {
+            long size;
+            while ((size = claim(unclaimed)) > 0) {
+                List<Person> batch = new ArrayList<>((int) size);
+                for (long i = 0; i < size; i++) {
+                    batch.add(new Person(
+                            faker.name().firstName(),
+                            faker.name().lastName(),
+                            faker.phoneNumber().cellPhone(),
+                            faker.internet().emailAddress(),
+                            new Address(
+                                    faker.address().streetAddress(),
+                                    faker.address().city(),
+                                    faker.address().state(),
+                                    faker.address().zipCode()
+                            )
+                    ));
+                }
+                queue.put(batch); // Blocks while the writer is behind
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Takes the size of the next batch from the rows no producer has claimed yet
+    private long claim(AtomicLong unclaimed) {
+        long before = unclaimed.getAndUpdate(left -> Math.max(0, left - batchSize));
+        return Math.min(before, batchSize);
+    }
+
+    private void write(List<Person> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            batch.forEach(entityManager::persist); // Address is cascaded; order_inserts groups both into batches
+            entityManager.flush();
+            entityManager.clear(); // Detach the batch so it can be garbage collected
+        });
+    }
+
+    private void checkProducers(List<Future<?>> producerTasks) throws InterruptedException {
+        for (Future<?> task : producerTasks) {
+            if (task.isDone()) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("A sample data producer failed", e.getCause());
+                }
+            }
+        }
+    }
+
+    private static long rate(long rows, long startNanos) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return rows * 1_000_000_000L / elapsedNanos;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+// JPA entity listener of Person and Address; Hibernate gets it from the Spring context
+// Silent on threads running a bulk load, which publishes one event for all of its rows instead
+@Component
+public class PersonChangeListener {
+
+    private static final ThreadLocal<Boolean> SUPPRESSED = ThreadLocal.withInitial(() -> false);
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PersonChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Stops the per-row events of the current thread until resume()
+    public void suppress() {
+        SUPPRESSED.set(true);
+    }
+
+    public void resume() {
+        SUPPRESSED.remove();
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (!SUPPRESSED.get()) {
+            eventPublisher.publishEvent(new PersonChangedEvent(entity, false));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (!SUPPRESSED.get()) {
+            eventPublisher.publishEvent(new PersonChangedEvent(entity, true));
+        }
+    }
+}
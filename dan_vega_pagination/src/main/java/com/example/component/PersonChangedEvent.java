@@ -0,0 +1,14 @@
+package com.example.component;
+
+// Published after a Person or Address row is inserted, updated or deleted
+// entity is null after a bulk load, which changes too many rows to send one event per row
+public record PersonChangedEvent(Object entity, boolean removed) {
+
+    public static PersonChangedEvent bulkLoad() {
+        return new PersonChangedEvent(null, false);
+    }
+
+    public boolean isBulkLoad() {
+        return entity == null;
+    }
+}
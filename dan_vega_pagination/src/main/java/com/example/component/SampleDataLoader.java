@@ -1,47 +1,27 @@
 package com.example.component;
 
-import net.datafaker.Faker;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.data.domain.Pageable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import com.example.entity.Address;
-import com.example.entity.Person;
-import com.example.repository.PersonRepository;
-
-import java.util.List;
-import java.util.stream.IntStream;
 
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE) // Seeds before the runners that read the people, e.g. the paging benchmark
 public class SampleDataLoader implements CommandLineRunner {
 
-    private final PersonRepository repository;
-    private final Faker faker;
+    private final BulkPersonLoader loader;
+    private final long rows;
 
-    public SampleDataLoader(PersonRepository repository) {
-        this.repository = repository;
-        this.faker = new Faker();
+    public SampleDataLoader(BulkPersonLoader loader, @Value("${seed.rows:100}") long rows) {
+        this.loader = loader;
+        this.rows = rows;
     }
 
     @Override
     public void run(String... args) throws Exception {
 
-        // create 100 rows of people in the database
-        List<Person> people = IntStream.rangeClosed(1, 100)
-                .mapToObj(i -> new Person(
-                        faker.name().firstName(),
-                        faker.name().lastName(),
-                        faker.phoneNumber().cellPhone(),
-                        faker.internet().emailAddress(),
-                        new Address(
-                                faker.address().streetAddress(),
-                                faker.address().city(),
-                                faker.address().state(),
-                                faker.address().zipCode()
-                        )
-                )).toList();
-
-        repository.saveAll(people); // Use the default saveAll method to save data
+        // create seed.rows rows of people in the database, 100 by default
+        loader.load(rows);
     }
 }
@@ -0,0 +1,146 @@
+package com.example.controller;
+
+import com.example.dto.CountStrategy;
+import com.example.dto.PersonName;
+import com.example.dto.PersonSearch;
+import com.example.dto.PersonSlice;
+import com.example.service.PersonNameIndex;
+import com.example.service.PersonPageCache;
+import com.example.service.PersonService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/v1/people")
+public class PersonController {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final PersonService personService;
+    private final PersonPageCache pageCache;
+    private final PersonNameIndex nameIndex;
+
+    public PersonController(PersonService personService, PersonPageCache pageCache, PersonNameIndex nameIndex) {
+        this.personService = personService;
+        this.pageCache = pageCache;
+        this.nameIndex = nameIndex;
+    }
+
+    // GET /api/v1/people?page=0&size=50&sort=lastName&count=exact|cached|estimated, a PersonPage of Person
+    @GetMapping
+    public ResponseEntity<byte[]> findPage(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "exact") String count,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Pageable pageable = pageRequest(page, size, sort);
+        CountStrategy countStrategy = countStrategy(count);
+        var cached = pageCache.get(pageKey("people", pageable, countStrategy),
+                () -> personService.findPage(pageable, countStrategy));
+        return respond(cached, ifNoneMatch);
+    }
+
+    // GET /api/v1/people/rows?page=0&size=50&sort=lastName&count=exact, the same page as a PersonPage of PersonRow
+    @GetMapping("/rows")
+    public ResponseEntity<byte[]> findRowPage(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "exact") String count,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Pageable pageable = pageRequest(page, size, sort);
+        CountStrategy countStrategy = countStrategy(count);
+        var cached = pageCache.get(pageKey("rows", pageable, countStrategy),
+                () -> personService.findRowPage(pageable, countStrategy));
+        return respond(cached, ifNoneMatch);
+    }
+
+    // GET /api/v1/people/search?lastName=Smi&city=Boston&state=MA&zip=02101&email=a@b.com&page=0&size=50&sort=lastName
+    @GetMapping("/search")
+    public ResponseEntity<byte[]> search(
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false) String zip,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "lastName") String sort,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Pageable pageable = pageRequest(page, size, sort);
+        PersonSearch search = new PersonSearch(lastName, email, city, state, zip);
+        var key = new PersonPageCache.PageKey("search", pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort().toString(), search);
+        var cached = pageCache.get(key, () -> personService.search(search, pageable));
+        return respond(cached, ifNoneMatch);
+    }
+
+    // GET /api/v1/people/suggest?prefix=smi&limit=10, type-ahead by "lastName firstName" from the in-process index
+    @GetMapping("/suggest")
+    public ResponseEntity<List<PersonName>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        if (!nameIndex.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(nameIndex.suggest(prefix, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+
+    // GET /api/v1/people/keyset?size=50, then GET /api/v1/people/keyset?cursor=<nextCursor>&size=50
+    @GetMapping("/keyset")
+    public ResponseEntity<PersonSlice> findSlice(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(personService.findSlice(cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+    }
+
+    private static Pageable pageRequest(int page, int size, String sort) {
+        return PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), Sort.by(sort));
+    }
+
+    private static PersonPageCache.PageKey pageKey(String view, Pageable pageable, CountStrategy countStrategy) {
+        return new PersonPageCache.PageKey(view, pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort().toString(), countStrategy);
+    }
+
+    // Repeat clients holding the current ETag get a 304 without the body being written
+    private static ResponseEntity<byte[]> respond(PersonPageCache.CachedPage cached, String ifNoneMatch) {
+        if (cached.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(cached.etag())
+                .body(cached.body());
+    }
+
+    private static CountStrategy countStrategy(String count) {
+        return CountStrategy.valueOf(count.toUpperCase(Locale.ROOT)); // Unknown strategies are a bad request
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, PropertyReferenceException.class})
+    public ResponseEntity<String> handleBadRequest(RuntimeException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.controller;
+
+import com.example.service.PersonExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+@RestController
+@RequestMapping("/api/v1/people/export")
+public class PersonExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final PersonExportService exportService;
+    private final long timeoutMillis;
+
+    public PersonExportController(
+            PersonExportService exportService,
+            // Exports outlive spring.mvc.async.request-timeout, which still applies to every other async request
+            @Value("${export.timeout:PT1H}") Duration timeout
+    ) {
+        this.exportService = exportService;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    // GET /api/v1/people/export?format=ndjson or ?format=csv
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletRequest request
+    ) {
+        boolean csv = format.equalsIgnoreCase("csv");
+        if (!csv && !format.equalsIgnoreCase("ndjson")) {
+            return ResponseEntity.badRequest().build();
+        }
+        extendAsyncTimeout(request);
+        StreamingResponseBody body = csv ? exportService::exportCsv : exportService::exportNdjson;
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=people." + (csv ? "csv" : "ndjson"))
+                .body(body);
+    }
+
+    // A StreamingResponseBody takes the global async timeout; this interceptor, registered for this request only,
+    // replaces it just before the response starts streaming
+    private void extendAsyncTimeout(HttpServletRequest request) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(
+                PersonExportController.class.getName(), new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                        if (webRequest instanceof AsyncWebRequest asyncWebRequest) {
+                            asyncWebRequest.setTimeout(timeoutMillis);
+                        }
+                    }
+                });
+    }
+}
@@ -2,8 +2,15 @@ package com.example.dan_vega_pagination;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// The components, entities and repositories live next to this package, not below it
+@SpringBootApplication(scanBasePackages = "com.example")
+@EntityScan("com.example.entity")
+@EnableJpaRepositories("com.example.repository")
+@EnableScheduling
 public class DanVegaPaginationApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,9 @@
+package com.example.dto;
+
+// How the total of a page is obtained
+public enum CountStrategy {
+
+    EXACT,      // COUNT(*) on every request
+    CACHED,     // A counter refreshed periodically and invalidated on writes
+    ESTIMATED   // The table statistics from information_schema, no scan at all
+}
@@ -0,0 +1,40 @@
+package com.example.dto;
+
+import com.example.entity.Person;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Position of the last person of a keyset page, handed to clients as an opaque token
+// lastName is null for people stored without one, which MySQL sorts before every name
+public record PersonCursor(String lastName, Integer id) {
+
+    private static final char NULL_FLAG = 'N';
+
+    private static final char VALUE_FLAG = 'V';
+
+    public static PersonCursor of(Person person) {
+        return new PersonCursor(person.getLastName(), person.getId());
+    }
+
+    // A flag tells a NULL lastName apart from any name, including the string "null": N<id>: or V<id>:<lastName>
+    public String encode() {
+        String raw = lastName == null ? NULL_FLAG + id.toString() + ":" : VALUE_FLAG + id.toString() + ":" + lastName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PersonCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            char flag = raw.charAt(0);
+            if (flag != NULL_FLAG && flag != VALUE_FLAG) {
+                throw new IllegalArgumentException("Unknown cursor flag");
+            }
+            int separator = raw.indexOf(':');
+            Integer id = Integer.valueOf(raw.substring(1, separator));
+            return new PersonCursor(flag == NULL_FLAG ? null : raw.substring(separator + 1), id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
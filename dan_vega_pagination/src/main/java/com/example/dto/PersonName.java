@@ -0,0 +1,5 @@
+package com.example.dto;
+
+// A type-ahead suggestion
+public record PersonName(Integer id, String firstName, String lastName) {
+}
@@ -0,0 +1,13 @@
+package com.example.dto;
+
+import java.util.List;
+
+// One page of results, with the total and the strategy used to obtain it
+public record PersonPage<T>(
+        List<T> content,
+        int page,
+        int size,
+        long totalElements,
+        CountStrategy countStrategy
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.dto;
+
+// A person and their address as one flat, read-only row, selected without managed entities
+public record PersonRow(
+        Integer id,
+        String firstName,
+        String lastName,
+        String phoneNumber,
+        String email,
+        String address,
+        String city,
+        String state,
+        String zip
+) {
+}
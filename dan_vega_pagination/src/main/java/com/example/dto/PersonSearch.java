@@ -0,0 +1,6 @@
+package com.example.dto;
+
+// Search filters; null filters are ignored
+// Also the filter of the page cache key, compared field by field, so no two searches can share a key
+public record PersonSearch(String lastName, String email, String city, String state, String zip) {
+}
@@ -0,0 +1,9 @@
+package com.example.dto;
+
+import com.example.entity.Person;
+
+import java.util.List;
+
+// One keyset page: the people, and the cursor of the next page when there is one
+public record PersonSlice(List<Person> content, String nextCursor, boolean hasNext) {
+}
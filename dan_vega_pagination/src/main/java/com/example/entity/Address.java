@@ -1,14 +1,33 @@
 package com.example.entity;
 
+import com.example.component.PersonChangeListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
+@EntityListeners(PersonChangeListener.class)
+@Table(indexes = {
+        @Index(name = "idx_address_city", columnList = "city"),
+        @Index(name = "idx_address_state_zip", columnList = "state, zip") // Search by state, or by state and zip
+})
 public class Address {
 
-    @Id @GeneratedValue
+    @Id
+    // Same address_seq as before; pooled-lo hands out 1000 ids per round trip, starting above any id already used
+    @GeneratedValue(generator = "address_seq")
+    @GenericGenerator(name = "address_seq", type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "address_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "1000"),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     private Integer id;
     private String address;
     private String city;
@@ -1,13 +1,28 @@
 package com.example.entity;
 
+import com.example.component.PersonChangeListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Data;
 
 @Entity
+@EntityListeners(PersonChangeListener.class)
+@Table(indexes = {
+        @Index(name = "idx_person_last_name_id", columnList = "lastName, id"), // Keyset pagination, lastName prefix search
+        @Index(name = "idx_person_email", columnList = "email")
+})
 public class Person {
 
     @Id
-    @GeneratedValue
+    // Same person_seq as before; pooled-lo hands out 1000 ids per round trip, starting above any id already used
+    @GeneratedValue(generator = "person_seq")
+    @GenericGenerator(name = "person_seq", type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "person_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "1000"),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     private Integer id;
     private String firstName;
     private String lastName;
@@ -29,7 +44,12 @@ public class Person {
         this.address = address;
     }
 
-    public Person(String dan, String vega, String s, String mail, Address address) {
+    public Person(String firstName, String lastName, String phoneNumber, String email, Address address) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.phoneNumber = phoneNumber;
+        this.email = email;
+        this.address = address;
     }
 
     public Integer getId() {
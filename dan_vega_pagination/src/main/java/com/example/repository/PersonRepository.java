@@ -1,10 +1,83 @@
 package com.example.repository;
 
+import com.example.dto.PersonCursor;
+import com.example.dto.PersonRow;
 import com.example.entity.Person;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface PersonRepository extends PagingAndSortingRepository<Person, Integer> {
+public interface PersonRepository extends PagingAndSortingRepository<Person, Integer>, ListCrudRepository<Person, Integer>,
+        JpaSpecificationExecutor<Person> {
+
+    // Loads each page of people together with their addresses in one query, instead of one select per address
+    @Override
+    @EntityGraph(attributePaths = "address")
+    Page<Person> findAll(Pageable pageable);
+
+    // Search page, with the filters of PersonSpecifications and the addresses fetched in the same query
+    @Override
+    @EntityGraph(attributePaths = "address")
+    Page<Person> findAll(Specification<Person> spec, Pageable pageable);
+
+    // The same page as flat rows, without managed entities
+    @Query(value = """
+            SELECT new com.example.dto.PersonRow(
+                p.id, p.firstName, p.lastName, p.phoneNumber, p.email, a.address, a.city, a.state, a.zip)
+            FROM Person p LEFT JOIN p.address a
+            """,
+            countQuery = "SELECT count(p) FROM Person p")
+    Page<PersonRow> findAllRows(Pageable pageable);
+
+    // The same page without the COUNT(*), for callers that count with another strategy
+    @EntityGraph(attributePaths = "address")
+    Slice<Person> findAllBy(Pageable pageable);
+
+    @Query("""
+            SELECT new com.example.dto.PersonRow(
+                p.id, p.firstName, p.lastName, p.phoneNumber, p.email, a.address, a.city, a.state, a.zip)
+            FROM Person p LEFT JOIN p.address a
+            """)
+    Slice<PersonRow> findAllRowsBy(Pageable pageable);
+
+    // First keyset page; the Pageable only carries the limit, so no COUNT(*) is run
+    @EntityGraph(attributePaths = "address")
+    @Query("SELECT p FROM Person p ORDER BY p.lastName, p.id")
+    List<Person> findFirstByKeyset(Pageable limit);
+
+    // Next keyset page: seeks past (lastName, id) on idx_person_last_name_id instead of skipping rows
+    @EntityGraph(attributePaths = "address")
+    @Query("""
+            SELECT p FROM Person p
+            WHERE p.lastName > :lastName OR (p.lastName = :lastName AND p.id > :id)
+            ORDER BY p.lastName, p.id
+            """)
+    List<Person> findAfterByKeyset(@Param("lastName") String lastName, @Param("id") Integer id, Pageable limit);
+
+    // Next keyset page after a person without a lastName: the remaining NULLs, then every named person
+    // NULLs sort first in ascending order on MySQL and H2, as they do in idx_person_last_name_id
+    @EntityGraph(attributePaths = "address")
+    @Query("""
+            SELECT p FROM Person p
+            WHERE (p.lastName IS NULL AND p.id > :id) OR p.lastName IS NOT NULL
+            ORDER BY p.lastName, p.id
+            """)
+    List<Person> findAfterNullLastNameByKeyset(@Param("id") Integer id, Pageable limit);
+
+    // Next keyset page after the cursor, whether or not its lastName is NULL
+    default List<Person> findAfterByKeyset(PersonCursor cursor, Pageable limit) {
+        return cursor.lastName() == null
+                ? findAfterNullLastNameByKeyset(cursor.id(), limit)
+                : findAfterByKeyset(cursor.lastName(), cursor.id(), limit);
+    }
 
 }
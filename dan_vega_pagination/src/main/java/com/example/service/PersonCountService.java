@@ -0,0 +1,86 @@
+package com.example.service;
+
+import com.example.component.PersonChangedEvent;
+import com.example.dto.CountStrategy;
+import com.example.entity.Person;
+import com.example.repository.PersonRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Counts people with the strategy the caller chose
+@Service
+public class PersonCountService {
+
+    private static final long STALE = -1;
+
+    private static final String ESTIMATE_SQL = """
+            SELECT table_rows FROM information_schema.tables
+            WHERE table_schema = DATABASE() AND table_name = 'person'
+            """;
+
+    private final PersonRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile long cachedCount = STALE;
+
+    public PersonCountService(PersonRepository repository, JdbcTemplate jdbcTemplate) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Returns the count and the strategy actually used, which differs when an estimate is not available
+    public Result count(CountStrategy strategy) {
+        return switch (strategy) {
+            case EXACT -> new Result(repository.count(), CountStrategy.EXACT);
+            case CACHED -> new Result(cachedCount(), CountStrategy.CACHED);
+            case ESTIMATED -> estimate();
+        };
+    }
+
+    private long cachedCount() {
+        long count = cachedCount;
+        if (count != STALE) {
+            return count;
+        }
+        synchronized (this) { // Only one request recounts after an invalidation
+            if (cachedCount == STALE) {
+                cachedCount = repository.count();
+            }
+            return cachedCount;
+        }
+    }
+
+    private Result estimate() {
+        try {
+            Long rows = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class);
+            if (rows != null) {
+                return new Result(rows, CountStrategy.ESTIMATED);
+            }
+        } catch (DataAccessException e) {
+            // No table statistics on this database
+        }
+        return new Result(cachedCount(), CountStrategy.CACHED);
+    }
+
+    // Recounts in the background after a change, so the next request finds the count ready; idle when nothing changed
+    @Scheduled(fixedDelayString = "${count.refresh-interval:60000}")
+    public void refresh() {
+        if (cachedCount == STALE) {
+            cachedCount();
+        }
+    }
+
+    // Runs after the transaction that changed a person commits, and not at all when it rolls back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonChanged(PersonChangedEvent event) {
+        if (event.isBulkLoad() || event.entity() instanceof Person) {
+            cachedCount = STALE;
+        }
+    }
+
+    public record Result(long count, CountStrategy strategy) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Streams every person with their address straight from a forward-only cursor to the response
+// Rows are never collected: each one is written as soon as it is read, and the output is flushed once per batch,
+// so a blocked client slows the cursor down instead of filling the heap
+@Service
+public class PersonExportService {
+
+    private static final String SQL = """
+            SELECT p.id, p.first_name, p.last_name, p.phone_number, p.email, a.address, a.city, a.state, a.zip
+            FROM person p LEFT JOIN address a ON a.id = p.address_id
+            ORDER BY p.id
+            """;
+
+    private static final String[] COLUMNS = {
+            "id", "firstName", "lastName", "phoneNumber", "email", "address", "city", "state", "zip"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonFactory jsonFactory;
+    private final int fetchSize;
+    private final int flushEvery;
+
+    public PersonExportService(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            // Integer.MIN_VALUE makes MySQL stream the result set row by row; other drivers take a positive size
+            @Value("${export.fetch-size:1000}") int fetchSize,
+            @Value("${export.flush-every:1000}") int flushEvery
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonFactory = objectMapper.getFactory();
+        this.fetchSize = fetchSize;
+        this.flushEvery = flushEvery;
+    }
+
+    public void exportNdjson(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator json = jsonFactory.createGenerator(writer);
+        json.setRootValueSeparator(null);
+        stream(rs -> {
+            json.writeStartObject();
+            json.writeNumberField(COLUMNS[0], rs.getInt(1));
+            for (int i = 1; i < COLUMNS.length; i++) {
+                json.writeStringField(COLUMNS[i], rs.getString(i + 1));
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }, json::flush);
+        json.flush(); // The container closes the response stream
+    }
+
+    public void exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+        stream(rs -> {
+            writer.write(Integer.toString(rs.getInt(1)));
+            for (int i = 1; i < COLUMNS.length; i++) {
+                writer.write(',');
+                writeCsvValue(writer, rs.getString(i + 1));
+            }
+            writer.write('\n');
+        }, writer::flush);
+        writer.flush();
+    }
+
+    private void stream(RowWriter rowWriter, Flusher flusher) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, new RowCallbackHandler() {
+            private long rows;
+
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                try {
+                    rowWriter.write(rs);
+                    if (++rows % flushEvery == 0) {
+                        flusher.flush(); // Hands the batch to the client, blocking while it is slow to read
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // The client went away, stop reading the cursor
+                }
+            }
+        });
+    }
+
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface Flusher {
+        void flush() throws IOException;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.service;
+
+import com.example.component.PersonChangedEvent;
+import com.example.dto.PersonName;
+import com.example.entity.Person;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// In-process prefix index over "lastName firstName" for type-ahead search
+// A sorted map turns a prefix lookup into a range scan of O(log n), without touching the database;
+// it is loaded once at startup and then kept up to date from committed Person changes
+@Service
+public class PersonNameIndex implements SmartInitializingSingleton {
+
+    private static final String LOAD_SQL = "SELECT id, first_name, last_name FROM person";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int fetchSize;
+
+    private final NavigableMap<String, PersonName> byName = new ConcurrentSkipListMap<>(); // name key -> person
+    private final Map<Integer, String> keyById = new ConcurrentHashMap<>(); // id -> current name key
+
+    public PersonNameIndex(
+            JdbcTemplate jdbcTemplate,
+            @Value("${search.name-index.enabled:false}") boolean enabled, // Opt-in, it holds every person in the heap
+            @Value("${export.fetch-size:1000}") int fetchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns up to limit people whose "lastName firstName" starts with the prefix, ignoring case
+    public List<PersonName> suggest(String prefix, int limit) {
+        String from = normalize(prefix);
+        return byName.subMap(from, true, from + Character.MAX_VALUE, false).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        load();
+    }
+
+    // Adds or updates every person of the table; enough after a bulk load, which only inserts
+    private void load() {
+        // Streams the table instead of loading it, the same way as the export
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (ResultSet rs) -> {
+            put(new PersonName(rs.getInt(1), rs.getString(2), rs.getString(3)));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonChanged(PersonChangedEvent event) {
+        if (enabled && event.isBulkLoad()) {
+            load();
+            return;
+        }
+        if (!enabled || !(event.entity() instanceof Person person)) {
+            return;
+        }
+        if (event.removed()) {
+            remove(person.getId());
+        } else {
+            put(new PersonName(person.getId(), person.getFirstName(), person.getLastName()));
+        }
+    }
+
+    private void put(PersonName person) {
+        String key = normalize(person.lastName() + " " + person.firstName()) + '\u0000' + person.id();
+        String previousKey = keyById.put(person.id(), key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            byName.remove(previousKey); // The name changed
+        }
+        byName.put(key, person);
+    }
+
+    private void remove(Integer id) {
+        String key = keyById.remove(id);
+        if (key != null) {
+            byName.remove(key);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
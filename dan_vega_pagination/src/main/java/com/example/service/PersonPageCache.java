@@ -0,0 +1,112 @@
+package com.example.service;
+
+import com.example.component.PersonChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Caches serialized page responses by (view, page, size, sort, filter), within a memory budget and a time to live
+// Any committed change to a Person or Address clears it, and each entry carries an ETag for conditional requests
+@Service
+public class PersonPageCache {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<PageKey, CachedPage> cache;
+
+    // Bumped on every change; a page read before a change is not stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    public PersonPageCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${page-cache.time-to-live:PT5M}") Duration timeToLive,
+            @Value("${page-cache.maximum-bytes:67108864}") long maximumBytes
+    ) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes) // Evicts the least recently used pages over the budget
+                .weigher((PageKey key, CachedPage page) -> page.body().length)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        // Exposes cache_gets{result=hit|miss}, cache_evictions and cache_size for cache=person-pages
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "person-pages");
+    }
+
+    // Returns the cached page, or loads, serializes and caches it
+    public CachedPage get(PageKey key, Supplier<?> loader) {
+        CachedPage cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generationBefore = generation.get();
+        CachedPage page = serialize(loader.get());
+        if (generation.get() == generationBefore) {
+            cache.put(key, page);
+        }
+        return page;
+    }
+
+    // Runs after the transaction that changed a person commits, so no page can be reloaded from older data
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPersonChanged(PersonChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private CachedPage serialize(Object page) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(page);
+            return new CachedPage(body, etag(body));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // filter is a value object compared by equals, e.g. a PersonSearch or a CountStrategy
+    public record PageKey(String view, int page, int size, String sort, Object filter) {
+    }
+
+    public record CachedPage(byte[] body, String etag) {
+
+        // Checks an If-None-Match header, which may list several tags or be "*"
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String trimmed = tag.trim();
+                if (trimmed.startsWith("W/")) {
+                    trimmed = trimmed.substring(2);
+                }
+                if (trimmed.equals("*") || trimmed.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
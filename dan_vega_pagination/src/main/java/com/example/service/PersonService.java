@@ -0,0 +1,72 @@
+package com.example.service;
+
+import com.example.dto.CountStrategy;
+import com.example.dto.PersonCursor;
+import com.example.dto.PersonPage;
+import com.example.dto.PersonRow;
+import com.example.dto.PersonSearch;
+import com.example.dto.PersonSlice;
+import com.example.entity.Person;
+import com.example.repository.PersonRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class PersonService {
+
+    private final PersonRepository repository;
+    private final PersonCountService countService;
+
+    public PersonService(PersonRepository repository, PersonCountService countService) {
+        this.repository = repository;
+        this.countService = countService;
+    }
+
+    // Returns a page of people with their addresses, loaded in a single query, and counted with the given strategy
+    public PersonPage<Person> findPage(Pageable pageable, CountStrategy countStrategy) {
+        if (countStrategy == CountStrategy.EXACT) {
+            return toPage(repository.findAll(pageable));
+        }
+        return toPage(repository.findAllBy(pageable), countService.count(countStrategy));
+    }
+
+    // Returns a page of flat person and address rows, counted with the given strategy
+    public PersonPage<PersonRow> findRowPage(Pageable pageable, CountStrategy countStrategy) {
+        if (countStrategy == CountStrategy.EXACT) {
+            return toPage(repository.findAllRows(pageable));
+        }
+        return toPage(repository.findAllRowsBy(pageable), countService.count(countStrategy));
+    }
+
+    // Returns a page of the people matching the search, with exact totals
+    public PersonPage<Person> search(PersonSearch search, Pageable pageable) {
+        return toPage(repository.findAll(PersonSpecifications.matching(search), pageable));
+    }
+
+    // Returns the people after the cursor, sorted by lastName then id
+    public PersonSlice findSlice(String cursor, int size) {
+        var limit = PageRequest.of(0, size + 1); // One extra row tells whether there is a next page
+        List<Person> people = cursor == null
+                ? repository.findFirstByKeyset(limit)
+                : repository.findAfterByKeyset(PersonCursor.decode(cursor), limit);
+        boolean hasNext = people.size() > size;
+        List<Person> content = hasNext ? people.subList(0, size) : people;
+        String nextCursor = hasNext ? PersonCursor.of(content.get(content.size() - 1)).encode() : null;
+        return new PersonSlice(content, nextCursor, hasNext);
+    }
+
+    private static <T> PersonPage<T> toPage(Page<T> page) {
+        return new PersonPage<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(),
+                CountStrategy.EXACT);
+    }
+
+    private static <T> PersonPage<T> toPage(Slice<T> slice, PersonCountService.Result count) {
+        return new PersonPage<>(slice.getContent(), slice.getNumber(), slice.getSize(), count.count(),
+                count.strategy());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.service;
+
+import com.example.dto.PersonSearch;
+import com.example.entity.Address;
+import com.example.entity.Person;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds the WHERE clause of a search from the filters that are set, so each query can use the matching index:
+// idx_person_last_name_id for the lastName prefix, idx_person_email, idx_address_city and idx_address_state_zip
+public final class PersonSpecifications {
+
+    private PersonSpecifications() {
+    }
+
+    public static Specification<Person> matching(PersonSearch search) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (hasText(search.lastName())) {
+                // A prefix LIKE is a range scan on the index; a leading wildcard would not be
+                predicates.add(cb.like(root.get("lastName"), escape(search.lastName()) + "%", '\\'));
+            }
+            if (hasText(search.email())) {
+                predicates.add(cb.equal(root.get("email"), search.email()));
+            }
+            if (hasText(search.city()) || hasText(search.state()) || hasText(search.zip())) {
+                Join<Person, Address> address = root.join("address", JoinType.INNER);
+                if (hasText(search.city())) {
+                    predicates.add(cb.equal(address.get("city"), search.city()));
+                }
+                if (hasText(search.state())) {
+                    predicates.add(cb.equal(address.get("state"), search.state()));
+                }
+                if (hasText(search.zip())) {
+                    predicates.add(cb.equal(address.get("zip"), search.zip()));
+                }
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
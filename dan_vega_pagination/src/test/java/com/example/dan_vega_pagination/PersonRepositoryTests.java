@@ -0,0 +1,141 @@
+package com.example.dan_vega_pagination;
+
+import com.example.dto.PersonCursor;
+import com.example.entity.Address;
+import com.example.entity.Person;
+import com.example.repository.PersonRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class PersonRepositoryTests {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired
+    private PersonRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        repository.saveAll(IntStream.rangeClosed(1, 60)
+                .mapToObj(i -> new Person(null, "First" + i, "Last" + i, "555-" + i, i + "@mail.com",
+                        new Address(i + " Main St", "City" + i, "State", "0000" + i)))
+                .toList());
+        entityManager.flush();
+        entityManager.clear(); // Nothing cached, so every address has to come from the database
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void entityPageLoadsAddressesWithThePeople() {
+        var page = repository.findAll(PageRequest.of(0, PAGE_SIZE, Sort.by("lastName")));
+
+        page.getContent().forEach(person -> assertThat(person.getAddress().getCity()).isNotNull());
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2); // Data query and count query
+    }
+
+    @Test
+    void rowPageIsASingleJoinWithoutEntities() {
+        var page = repository.findAllRows(PageRequest.of(0, PAGE_SIZE, Sort.by("lastName")));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE).allSatisfy(row -> assertThat(row.city()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2); // Data query and count query
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void keysetPageIsASingleQuery() {
+        var people = repository.findFirstByKeyset(PageRequest.of(0, PAGE_SIZE));
+
+        people.forEach(person -> assertThat(person.getAddress().getCity()).isNotNull());
+        assertThat(people).hasSize(PAGE_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetPagesCrossTheNullLastNamesWithoutSkippingOrRepeatingAnyone() {
+        repository.saveAll(IntStream.rangeClosed(1, 7)
+                .mapToObj(i -> new Person(null, "Unnamed" + i, null, "555-0" + i, "unnamed" + i + "@mail.com",
+                        new Address(i + " Side St", "City" + i, "State", "1000" + i)))
+                .toList());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Pages of 3 end on a NULL lastName twice, then cross from the NULLs to the names
+        var seen = new ArrayList<Person>();
+        var page = repository.findFirstByKeyset(PageRequest.of(0, 3));
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            var cursor = PersonCursor.decode(PersonCursor.of(page.get(page.size() - 1)).encode());
+            page = repository.findAfterByKeyset(cursor, PageRequest.of(0, 3));
+        }
+
+        var expected = repository.findAll().stream()
+                .sorted(Comparator.comparing(Person::getLastName, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(Person::getId))
+                .map(Person::getId)
+                .toList();
+        assertThat(seen).extracting(Person::getId).containsExactlyElementsOf(expected).hasSize(67);
+        assertThat(seen.subList(0, 7)).extracting(Person::getLastName).containsOnlyNulls();
+    }
+
+    @Test
+    void cursorKeepsANullLastNameApartFromTheStringNull() {
+        var nullName = new PersonCursor(null, 42);
+        var stringNull = new PersonCursor("null", 42);
+
+        assertThat(PersonCursor.decode(nullName.encode())).isEqualTo(nullName);
+        assertThat(PersonCursor.decode(stringNull.encode())).isEqualTo(stringNull);
+        assertThat(nullName.encode()).isNotEqualTo(stringNull.encode());
+    }
+
+    @Test
+    void cursorRoundTripsNamesWithSeparatorsAndNonAsciiCharacters() {
+        for (String lastName : List.of("", "O'Brien", "a:b:c", "Müller", "李")) {
+            var cursor = new PersonCursor(lastName, 7);
+            assertThat(PersonCursor.decode(cursor.encode())).isEqualTo(cursor);
+        }
+    }
+
+    @Test
+    void cursorRejectsTokensItDidNotEncode() {
+        for (String token : List.of("", "!!!", encode("X1:Smith"), encode("V:Smith"), encode("Vabc:Smith"), encode("N12"))) {
+            assertThatIllegalArgumentException().isThrownBy(() -> PersonCursor.decode(token));
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,121 @@
+package com.alibou.security.config;
+
+import com.alibou.security.token.JtiDenylist;
+import com.alibou.security.token.RevocationTransport;
+import com.alibou.security.token.TokenRepository;
+import com.alibou.security.token.TokenStateStore;
+import com.alibou.security.token.TokenWriteBehindQueue;
+import com.alibou.security.user.Role;
+import com.alibou.security.user.User;
+import com.alibou.security.user.UserPrincipal;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+// Garbage left by each authenticated request on the stateless path, with a cached token and metrics turned off
+// Read gc.alloc.rate.norm (bytes per operation); the stock* benchmarks show what the previous objects cost
+// Run with: ./gradlew jmh -Pjmh.includes=JwtAuthenticationAllocationBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtAuthenticationAllocationBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    // true: the filter also builds WebAuthenticationDetails, as with jwt.auth.details.enabled
+    @Param({"false", "true"})
+    private boolean details;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private UserPrincipal principal;
+
+    @Setup
+    public void setUp() {
+        var user = User.builder()
+                .id(1)
+                .email("bench@mail.com")
+                .password("password")
+                .role(Role.USER)
+                .build();
+        var meterRegistry = new SimpleMeterRegistry();
+        meterRegistry.config().meterFilter(MeterFilter.deny()); // Leaves the allocations of the filter alone
+        var metrics = new AuthMetrics(meterRegistry, 0);
+        var jwtService = new JwtService(
+                new JwtClaimsCache(10_000),
+                new JwtKeyRing(JwtKeyRing.hmacKey("primary", SECRET)),
+                metrics,
+                Duration.ofMinutes(5),
+                Duration.ofDays(7));
+        var jtiDenylist = new JtiDenylist(mock(TokenRepository.class), mock(RevocationTransport.class), mock(TokenWriteBehindQueue.class));
+
+        filter = new JwtAuthenticationFilter(
+                jwtService,
+                new BearerTokenExtractor(4096),
+                mock(CachedUserDetailsService.class), // Not used on the stateless path
+                mock(TokenStateStore.class),
+                jtiDenylist,
+                metrics);
+        ReflectionTestUtils.setField(filter, "statelessEnabled", true);
+        ReflectionTestUtils.setField(filter, "detailsEnabled", details);
+
+        var token = jwtService.generateToken(user);
+        jwtService.extractAllClaims(token); // Verified once, then served from the claims cache
+        request = new MockHttpServletRequest("GET", "/api/v1/demo-controller");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        principal = UserPrincipal.from(user);
+    }
+
+    // From the Authorization header to the authenticated security context
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        try {
+            filter.doFilterInternal(request, response, NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // The authentication the filter builds now, for a principal it already has
+    @Benchmark
+    public Authentication leanAuthentication() {
+        return new JwtAuthentication(principal, null);
+    }
+
+    // What the filter used to build: a fresh authority list, a copying token and request details
+    @Benchmark
+    public Authentication stockAuthentication() {
+        var authentication = new UsernamePasswordAuthenticationToken(
+                principal, null, List.of(new SimpleGrantedAuthority(principal.role().name())));
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        return authentication;
+    }
+}
@@ -0,0 +1,154 @@
+package com.alibou.security.config;
+
+import com.alibou.security.token.JtiDenylist;
+import com.alibou.security.token.RevocationTransport;
+import com.alibou.security.token.TokenRepository;
+import com.alibou.security.token.TokenStateStore;
+import com.alibou.security.token.TokenWriteBehindQueue;
+import com.alibou.security.user.Role;
+import com.alibou.security.user.User;
+import com.alibou.security.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Per-request cost of the JWT filter, from the Authorization header to the authenticated security context
+// Repositories are stubbed, so the numbers cover parsing, caches, revocation checks and the Authentication itself
+// Run with: ./gradlew jmh -Pjmh.includes=JwtAuthenticationFilterBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    // false: user details cache and token state store, true: claims only with the jti denylist
+    @Param({"false", "true"})
+    private boolean stateless;
+
+    // false: meters are denied and recording is a no-op, true: Prometheus timers as in production
+    // The difference between both scores is the cost of the instrumentation per request
+    @Param({"false", "true"})
+    private boolean instrumented;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private MockHttpServletRequest junkRequest;
+    private MockHttpServletRequest expiredRequest;
+
+    @Setup
+    public void setUp() {
+        var user = User.builder()
+                .id(1)
+                .email("bench@mail.com")
+                .password("password")
+                .role(Role.USER)
+                .build();
+        var userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        var tokenRepository = mock(TokenRepository.class);
+
+        MeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        if (!instrumented) {
+            meterRegistry.config().meterFilter(MeterFilter.deny());
+        }
+        var metrics = new AuthMetrics(meterRegistry, 0);
+        var jwtService = new JwtService(
+                new JwtClaimsCache(10_000),
+                new JwtKeyRing(JwtKeyRing.hmacKey("primary", SECRET)),
+                metrics,
+                Duration.ofMinutes(5),
+                Duration.ofDays(7));
+        var userDetailsService = new CachedUserDetailsService(
+                userRepository, new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(10));
+        var tokenStateStore = new TokenStateStore(tokenRepository, jwtService, Duration.ofSeconds(5), 100_000, 100_000);
+        var jtiDenylist = new JtiDenylist(tokenRepository, mock(RevocationTransport.class), mock(TokenWriteBehindQueue.class));
+
+        var token = jwtService.generateToken(user);
+        Claims claims = jwtService.extractAllClaims(token);
+        tokenStateStore.register(token, user.getId(), claims.getId(), claims.getExpiration().getTime());
+
+        filter = new JwtAuthenticationFilter(
+                jwtService, new BearerTokenExtractor(4096), userDetailsService, tokenStateStore, jtiDenylist, metrics);
+        ReflectionTestUtils.setField(filter, "statelessEnabled", stateless);
+
+        request = new MockHttpServletRequest("GET", "/api/v1/demo-controller");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+
+        junkRequest = new MockHttpServletRequest("GET", "/api/v1/demo-controller");
+        junkRequest.addHeader("Authorization", "Bearer not-a-jwt");
+        expiredRequest = new MockHttpServletRequest("GET", "/api/v1/demo-controller");
+        expiredRequest.addHeader("Authorization", "Bearer " + expiredToken(token));
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        try {
+            filter.doFilterInternal(request, response, NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext(); // The next request starts unauthenticated again
+        }
+    }
+
+    // A request without a token, the floor every authenticated request is compared to
+    @Benchmark
+    public Authentication anonymous() throws Exception {
+        var anonymousRequest = new MockHttpServletRequest("GET", "/api/v1/auth/authenticate");
+        filter.doFilterInternal(anonymousRequest, response, NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    // A token that is not even three segments, rejected before any signature work
+    @Benchmark
+    public Authentication junkToken() throws Exception {
+        filter.doFilterInternal(junkRequest, response, NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    // A well-formed but expired token, rejected by the exp peek instead of an HMAC verification
+    @Benchmark
+    public Authentication expiredToken() throws Exception {
+        filter.doFilterInternal(expiredRequest, response, NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    // Keeps the header and signature of a real token, with a payload that expired in 2001
+    private static String expiredToken(String token) {
+        String[] parts = token.split("\\.");
+        String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"bench@mail.com\",\"exp\":1000000000}".getBytes(StandardCharsets.UTF_8));
+        return parts[0] + "." + payload + "." + parts[2];
+    }
+}
@@ -0,0 +1,64 @@
+package com.alibou.security.config;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Parse cost per authenticated request: the old three-parse path against parse-once and a hot claims cache
+// Run with: ./gradlew jmh
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService jwtService;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(
+                new JwtClaimsCache(10_000),
+                new JwtKeyRing(JwtKeyRing.hmacKey("primary", SECRET)),
+                new AuthMetrics(new SimpleMeterRegistry(), 0),
+                Duration.ofMinutes(5),
+                Duration.ofDays(7));
+        userDetails = new User("bench@mail.com", "password", List.of());
+        token = jwtService.generateToken(userDetails);
+    }
+
+    // Before: extractUsername + isTokenValid, three signature verifications per request
+    @Benchmark
+    public boolean threeParses() {
+        String username = jwtService.extractUsername(token);
+        return username != null && jwtService.isTokenValid(token, userDetails);
+    }
+
+    // After: a single verification whose claims are reused for validation
+    @Benchmark
+    public boolean parseOnce() {
+        Claims claims = jwtService.parseClaims(token);
+        return jwtService.isTokenValid(claims, userDetails);
+    }
+
+    // After, hot token: the claims come from the cache without any verification
+    @Benchmark
+    public boolean cachedClaims() {
+        Claims claims = jwtService.extractAllClaims(token);
+        return jwtService.isTokenValid(claims, userDetails);
+    }
+}
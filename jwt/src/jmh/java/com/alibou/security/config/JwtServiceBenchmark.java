@@ -0,0 +1,99 @@
+package com.alibou.security.config;
+
+import com.alibou.security.user.Role;
+import com.alibou.security.user.User;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Operations per second of the public JwtService calls, with the allocation rate from the gc profiler
+// The uncached service never keeps claims, so its calls always verify the signature; the cached one shows a hit
+// Run with: ./gradlew jmh -Pjmh.includes=JwtServiceBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService jwtService;
+    private JwtService cachedJwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = jwtService(new PassThroughClaimsCache());
+        cachedJwtService = jwtService(new JwtClaimsCache(10_000));
+        user = User.builder()
+                .id(1)
+                .email("bench@mail.com")
+                .password("password")
+                .role(Role.USER)
+                .build();
+        token = jwtService.generateToken(user);
+        cachedJwtService.extractAllClaims(token); // Every call below is a hit
+    }
+
+    // Issuing a token, as on every register, login and refresh
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    // Subject lookup; verifies the signature on every call
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    // Legacy string validation; verifies the signature twice
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+
+    // Claims as read by the JWT filter, on a cache miss: one signature verification
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtService.extractAllClaims(token);
+    }
+
+    // The same on a cache hit, as for every request after the first with a token
+    @Benchmark
+    public Claims extractAllClaimsCached() {
+        return cachedJwtService.extractAllClaims(token);
+    }
+
+    private static JwtService jwtService(JwtClaimsCache claimsCache) {
+        return new JwtService(
+                claimsCache,
+                new JwtKeyRing(JwtKeyRing.hmacKey("primary", SECRET)),
+                new AuthMetrics(new SimpleMeterRegistry(), 0),
+                Duration.ofMinutes(5),
+                Duration.ofDays(7));
+    }
+
+    // Keeps nothing, so whatever JwtService reads through the cache is verified again
+    private static final class PassThroughClaimsCache extends JwtClaimsCache {
+
+        PassThroughClaimsCache() {
+            super(0);
+        }
+
+        @Override
+        public Claims get(String token, Function<String, Claims> parser) {
+            return parser.apply(token);
+        }
+    }
+}
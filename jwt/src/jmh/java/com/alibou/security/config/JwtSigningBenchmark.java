@@ -0,0 +1,66 @@
+package com.alibou.security.config;
+
+import com.alibou.security.user.Role;
+import com.alibou.security.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Signs and verifications per second for each signing algorithm; verification dominates, one per cache miss
+// Run with: ./gradlew jmh -Pjmh.includes=JwtSigningBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtSigningBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Param({"HS256", "RS256", "ES256"})
+    private SignatureAlgorithm algorithm;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        var key = algorithm == SignatureAlgorithm.HS256
+                ? JwtKeyRing.hmacKey("primary", SECRET)
+                : JwtKeyRing.generateKey("primary", algorithm);
+        jwtService = new JwtService(
+                new JwtClaimsCache(10_000),
+                new JwtKeyRing(key),
+                new AuthMetrics(new SimpleMeterRegistry(), 0),
+                Duration.ofMinutes(5),
+                Duration.ofDays(7));
+        user = User.builder()
+                .id(1)
+                .email("bench@mail.com")
+                .password("password")
+                .role(Role.USER)
+                .build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateToken(user);
+    }
+
+    // Bypasses the claims cache, so every call verifies the signature
+    @Benchmark
+    public Claims verify() {
+        return jwtService.parseClaims(token);
+    }
+}
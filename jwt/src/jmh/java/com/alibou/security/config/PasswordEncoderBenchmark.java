@@ -0,0 +1,52 @@
+package com.alibou.security.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Logins per second (thrpt) and latency percentiles, p99 included (sample), for each BCrypt strength
+// Many login threads compete for the bounded hashing pool, as they would during a login storm
+// Run with: ./gradlew jmh -Pjmh.includes=PasswordEncoderBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class PasswordEncoderBenchmark {
+
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private BoundedPasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        passwordEncoder = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(strength),
+                Runtime.getRuntime().availableProcessors(),
+                1_000 // Large enough that the benchmark measures hashing, not load shedding
+        );
+        encodedPassword = passwordEncoder.encode("password");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordEncoder.shutdown();
+    }
+
+    @Benchmark
+    public boolean login() {
+        return passwordEncoder.matches("password", encodedPassword);
+    }
+}
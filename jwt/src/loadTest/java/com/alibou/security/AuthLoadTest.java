@@ -0,0 +1,96 @@
+package com.alibou.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import loadtest.LoadDriver;
+import loadtest.LoadSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Registers, logins and authenticated reads from many concurrent clients against an embedded H2 database
+// Run with: ./gradlew loadTest, tuned with -Ploadtest.clients=64 -Ploadtest.mix.login=20 and so on
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class AuthLoadTest {
+
+    private static final String PASSWORD = "password";
+
+    private final AtomicInteger registrations = new AtomicInteger();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void authenticationUnderLoad() throws Exception {
+        var settings = LoadSettings.fromSystemProperties(250, 200);
+        // Readers and logins use separate users: a login revokes the user's access tokens, so a reader logging in
+        // would invalidate the token it keeps sending and turn the rest of its reads into 403s
+        List<String> tokens = registerUsers("reader-", settings.clients()); // One user, and one token, per client
+        registerUsers("login-", settings.clients());
+
+        var driver = new LoadDriver(settings);
+        var report = driver.run(List.of(
+                new LoadDriver.Scenario("register", LoadSettings.weight("register", 1),
+                        client -> post("/api/v1/auth/register", register(email("new-" + registrations.incrementAndGet())))),
+                new LoadDriver.Scenario("login", LoadSettings.weight("login", 9),
+                        client -> post("/api/v1/auth/authenticate", Map.of("email", email("login-" + client), "password", PASSWORD))),
+                new LoadDriver.Scenario("read", LoadSettings.weight("read", 90),
+                        client -> HttpRequest.newBuilder(uri("/api/v1/demo-controller"))
+                                .header("Authorization", "Bearer " + tokens.get(client))
+                                .GET()
+                                .build())
+        ));
+        report.print(getClass().getSimpleName(), System.out);
+        report.verify(getClass().getSimpleName(), settings, System.out); // Thresholds, then the stored baseline
+    }
+
+    private List<String> registerUsers(String prefix, int count) throws Exception {
+        var client = HttpClient.newHttpClient();
+        var tokens = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            var response = client.send(post("/api/v1/auth/register", register(email(prefix + i))), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).isEqualTo(200);
+            tokens.add(objectMapper.readTree(response.body()).get("token").asText());
+        }
+        return tokens;
+    }
+
+    private Map<String, String> register(String email) {
+        return Map.of("firstname", "Load", "lastname", "Test", "email", email, "password", PASSWORD);
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String email(Object id) {
+        return "user-" + id + "@load.test";
+    }
+}
@@ -0,0 +1,15 @@
+package com.alibou.security;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// The same load against the opt-in virtual-thread mode; compare its report with the one of AuthLoadTest
+// Each test class runs in its own JVM, so the heap and thread figures of both reports are comparable
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "jwt.virtual-threads.enabled=true"
+)
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadAuthLoadTest extends AuthLoadTest {
+}
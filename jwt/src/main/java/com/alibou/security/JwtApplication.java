@@ -2,12 +2,21 @@ package com.alibou.security;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 @SpringBootApplication
+@EnableScheduling
 public class JwtApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(JwtApplication.class, args);
+        var application = new SpringApplication(JwtApplication.class);
+        // Lowest precedence, so application.properties, which is not in the repository, can still override them
+        application.setDefaultProperties(Map.of(
+                "management.endpoints.web.exposure.include", "health,prometheus"
+        ));
+        application.run(args);
     }
 
 }
@@ -27,5 +27,12 @@ public class AuthenticationController {
     ) {
         return ResponseEntity.ok(service.authenticate(request)); // Calls the authenticate method of the service and returns the response
     }
+
+    @PostMapping("/refresh") // HTTP POST endpoint to exchange a refresh token for new tokens
+    public ResponseEntity<AuthenticationResponse> refresh(
+            @RequestBody RefreshTokenRequest request // Takes the refresh token from the request body
+    ) {
+        return ResponseEntity.ok(service.refresh(request)); // Rotates the refresh token and returns the new pair
+    }
 }
 
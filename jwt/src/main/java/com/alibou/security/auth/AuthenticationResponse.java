@@ -11,5 +11,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class AuthenticationResponse {
 
-    private String token;
+    private String token; // Short-lived access token
+
+    private String refreshToken; // Exchanged at /api/v1/auth/refresh for a new pair of tokens
 }
@@ -1,25 +1,49 @@
 package com.alibou.security.auth;
 
+import com.alibou.security.config.AuthMetrics;
+import com.alibou.security.config.AuthMetrics.Outcome;
+import com.alibou.security.config.AuthMetrics.Stage;
+import com.alibou.security.config.AuthRateLimiter;
 import com.alibou.security.config.JwtService;
+import com.alibou.security.config.PasswordHashingOverloadedException;
+import com.alibou.security.config.RateLimitExceededException;
+import com.alibou.security.token.JtiDenylist;
 import com.alibou.security.token.Token;
 import com.alibou.security.token.TokenRepository;
+import com.alibou.security.token.TokenStateStore;
 import com.alibou.security.token.TokenType;
+import com.alibou.security.token.TokenWriteBehindQueue;
 import com.alibou.security.user.Role;
 import com.alibou.security.user.User;
+import com.alibou.security.user.UserChangedEvent;
 import com.alibou.security.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.function.Supplier;
+
 @Service // Marks this class as a Spring service
 @RequiredArgsConstructor // Generates a constructor with required arguments (final fields)
 public class AuthenticationService {
 
     private final UserRepository repository; // Repository for user data access
 
-    private final TokenRepository tokenRepository;
+    private final TokenWriteBehindQueue tokenWriteBehindQueue; // Persists token changes off the request thread
+
+    private final TokenRepository tokenRepository; // Refresh tokens are read and written synchronously
+
+    private final TokenStateStore tokenStateStore;
+
+    private final JtiDenylist jtiDenylist;
 
     private final PasswordEncoder passwordEncoder;
 
@@ -27,63 +51,190 @@ public class AuthenticationService {
 
     public final AuthenticationManager authenticationManager; // Manages authentication processes
 
+    private final ApplicationEventPublisher eventPublisher; // Notifies the user cache of revocations
+
+    private final AuthMetrics metrics; // Times hashing, password checks and whole logins and registrations
+
+    private final AuthRateLimiter rateLimiter; // Per-account attempts, the filter limits each client address
+
     public AuthenticationResponse register(RegisterRequest request) {
         // Register user and return JWT token
+        final long start = metrics.startRequest();
+        checkAccountRate(Stage.REGISTER, request.getEmail(), start);
+        final String encodedPassword;
+        try {
+            encodedPassword = timed(Stage.PASSWORD_HASH, () -> passwordEncoder.encode(request.getPassword()));
+        } catch (PasswordHashingOverloadedException e) {
+            metrics.record(Stage.REGISTER, Outcome.OVERLOADED, start);
+            throw e;
+        }
         var user = User.builder() // craete a new user object
                 .firstname(request.getFirstname())
                 .lastname(request.getLastname())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword())) // Encode and set password
+                .password(encodedPassword) // Set the encoded password
                 .role(Role.USER) // Set user role
                 .build(); // Build the user object
 
         var savedUser = repository.save(user);
-        var jwtToken = jwtService.generateToken(user); // Generate JWT token for the user
-        saveUserToken(savedUser, jwtToken);
-        return AuthenticationResponse.builder() // Build the authentication response
-                .token(jwtToken) // set the generated JWT token
-                .build(); // Build the response object
+        var response = issueTokens(savedUser, false); // Generate the access and refresh tokens for the user
+        metrics.record(Stage.REGISTER, Outcome.VALID, start);
+        return response;
     }
 
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
         // Authenticate user and return JWT token
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getEmail(),
-                        request.getPassword()
-                )
-        ); // Authenticate the user
+        final long start = metrics.startRequest();
+        checkAccountRate(Stage.LOGIN, request.getEmail(), start); // Before the password check, which is the costly part
+        try {
+            timed(Stage.PASSWORD_CHECK, () -> authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            request.getEmail(),
+                            request.getPassword()
+                    )
+            )); // Authenticate the user
+        } catch (AuthenticationException e) {
+            metrics.record(Stage.LOGIN, Outcome.BAD_CREDENTIALS, start); // Unknown users included, as Spring hides them
+            throw e;
+        } catch (PasswordHashingOverloadedException e) {
+            metrics.record(Stage.LOGIN, Outcome.OVERLOADED, start);
+            throw e;
+        }
 
         var user = repository.findByEmail(request.getEmail()) // Retrieve the user from the database
                 .orElseThrow(); // Throw exception if not found
+        revokeAccessTokens(user); // A login ends the user's other sessions
+        var response = issueTokens(user, true); // Generate the access and refresh tokens for the user
+        metrics.record(Stage.LOGIN, Outcome.VALID, start);
+        return response;
+    }
+
+    // Exchanges a refresh token for a new pair of tokens; each refresh token is accepted only once
+    public AuthenticationResponse refresh(RefreshTokenRequest request) {
+        final long start = metrics.startRequest();
+        final Claims claims;
+        try {
+            claims = jwtService.extractRefreshClaims(request.getRefreshToken());
+        } catch (JwtException | IllegalArgumentException e) {
+            metrics.record(Stage.REFRESH, e instanceof JwtException jwtException
+                    ? AuthMetrics.outcomeOf(jwtException) : Outcome.MALFORMED, start);
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+        if (tokenRepository.useRefreshToken(claims.getId()) == 0) {
+            var token = tokenRepository.findByJti(claims.getId()).orElse(null);
+            if (token == null || token.isRevoked()) {
+                metrics.record(Stage.REFRESH, Outcome.REVOKED, start); // Ended by a logout or a newer login
+                throw new InvalidRefreshTokenException("Refresh token revoked");
+            }
+            // Rotated before: whoever presents it now may have stolen it, so every session of the user ends
+            revokeAllUserTokens(token.getUser());
+            metrics.record(Stage.REFRESH, Outcome.REUSED, start);
+            throw new InvalidRefreshTokenException("Refresh token already used");
+        }
+        var user = repository.findByEmail(claims.getSubject()).orElse(null);
+        if (user == null) {
+            metrics.record(Stage.REFRESH, Outcome.UNKNOWN_USER, start);
+            throw new InvalidRefreshTokenException("Unknown user");
+        }
+        var response = issueTokens(user, false);
+        metrics.record(Stage.REFRESH, Outcome.VALID, start);
+        return response;
+    }
+
+    private AuthenticationResponse issueTokens(User user, boolean revokeOlderRefreshTokens) {
         var jwtToken = jwtService.generateToken(user); // Generate JWT token for the user
-        revokeAllUserTokens(user);
+        var refreshToken = jwtService.generateRefreshToken(user);
         saveUserToken(user, jwtToken);
+        var refreshExpiration = saveRefreshToken(user, refreshToken);
+        if (revokeOlderRefreshTokens) {
+            // Every refresh token lives equally long, so the ones issued before this one expire before it
+            tokenWriteBehindQueue.revokeRefreshTokens(user.getId(), refreshExpiration);
+        }
         return AuthenticationResponse.builder() // Build the authentication response
-                .token(jwtToken)
+                .token(jwtToken) // set the generated JWT token
+                .refreshToken(refreshToken)
                 .build(); // Build the response object
     }
 
+    // Rejects the request before any hashing once the account has used up its attempts
+    private void checkAccountRate(Stage stage, String email, long start) {
+        try {
+            rateLimiter.checkAccount(email);
+        } catch (RateLimitExceededException e) {
+            metrics.record(stage, Outcome.THROTTLED, start);
+            throw e;
+        }
+    }
+
+    // Runs a password stage and records its outcome
+    private <T> T timed(Stage stage, Supplier<T> action) {
+        final long start = metrics.start();
+        try {
+            T result = action.get();
+            metrics.record(stage, Outcome.VALID, start);
+            return result;
+        } catch (InternalAuthenticationServiceException e) {
+            // For unknown users, DaoAuthenticationProvider still hashes a dummy password and wraps its failures
+            if (e.getCause() instanceof PasswordHashingOverloadedException overloaded) {
+                metrics.record(stage, Outcome.OVERLOADED, start);
+                throw overloaded;
+            }
+            metrics.record(stage, Outcome.BAD_CREDENTIALS, start);
+            throw e;
+        } catch (AuthenticationException e) {
+            metrics.record(stage, Outcome.BAD_CREDENTIALS, start);
+            throw e;
+        } catch (PasswordHashingOverloadedException e) {
+            metrics.record(stage, Outcome.OVERLOADED, start);
+            throw e;
+        }
+    }
+
     private void saveUserToken(User user, String jwtToken) {
+        var claims = jwtService.extractAllClaims(jwtToken);
         var token = Token.builder()
                 .user(user)
                 .token(jwtToken)
+                .jti(claims.getId())
+                .expiresAt(claims.getExpiration().toInstant())
                 .tokenType(TokenType.BEARER)
                 .revoked(false)
                 .expired(false)
                 .build();
-        tokenRepository.save(token);
+        tokenWriteBehindQueue.save(token); // First, so a token that cannot be queued is not left active in memory
+        tokenStateStore.register(jwtToken, user.getId(), claims.getId(), claims.getExpiration().getTime());
     }
 
+    // The one synchronous write of a login: refresh() looks refresh tokens up in the table only, so the token
+    // is written before the response is sent, and can be rotated as soon as the client has it
+    private Instant saveRefreshToken(User user, String refreshToken) {
+        var claims = jwtService.extractRefreshClaims(refreshToken);
+        var expiresAt = claims.getExpiration().toInstant();
+        tokenRepository.save(Token.builder()
+                .user(user)
+                .token(refreshToken)
+                .jti(claims.getId())
+                .expiresAt(expiresAt)
+                .tokenType(TokenType.REFRESH)
+                .revoked(false)
+                .expired(false)
+                .build());
+        return expiresAt;
+    }
+
+    // On refresh token reuse: the refresh tokens are revoked before the request is answered, so a stolen one
+    // cannot be rotated once more while the queue is flushed
     private void revokeAllUserTokens(User user) {
-        var validUserTokens = tokenRepository.findAllValidTokensByUser(user.getId());
-        if (validUserTokens.isEmpty()) {
-            return;
-        }
-        validUserTokens.forEach(t -> {
-            t.setExpired(true);
-            t.setRevoked(true);
-        });
-        tokenRepository.saveAll(validUserTokens);
+        tokenRepository.revokeRefreshTokensByUser(user.getId());
+        revokeAccessTokens(user);
+    }
+
+    // Access tokens stop working on this node at once, as the in-memory index also knows the ones still waiting
+    // to be written; the token table and the other nodes, which may have issued some too, follow from the queue
+    private void revokeAccessTokens(User user) {
+        tokenStateStore.revokeAllForUser(user.getId())
+                .forEach(token -> jtiDenylist.revoke(token.jti(), token.expiration()));
+        tokenWriteBehindQueue.revokeAllForUser(user.getId());
+        eventPublisher.publishEvent(new UserChangedEvent(user.getEmail()));
     }
 }
@@ -0,0 +1,9 @@
+package com.alibou.security.auth;
+
+// Thrown when a refresh token is forged, expired, unknown or presented a second time; answered with 401
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
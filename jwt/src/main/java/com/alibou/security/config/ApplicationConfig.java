@@ -2,8 +2,11 @@ package com.alibou.security.config;
 
 import com.alibou.security.user.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -22,8 +25,23 @@ public class ApplicationConfig {
     // UserRepository bean injected by Spring
     private final UserRepository repository;
 
+    // BCrypt cost factor: each increment doubles the hashing time
+    @Value("${jwt.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    // Threads dedicated to password hashing, so logins cannot take the whole Tomcat pool
+    @Value("${jwt.bcrypt.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int bcryptThreads;
+
+    // Hashes allowed to wait for a thread before new logins are rejected with 503
+    // Each waiting hash blocks a request thread, so none wait by default: at most bcryptThreads requests are held
+    @Value("${jwt.bcrypt.queue-capacity:0}")
+    private int bcryptQueueCapacity;
+
     // @Bean annotation indicates that a method produces a bean to be managed by the Spring container
+    // @Primary: the one injected wherever a UserDetailsService is asked for, the cached one is injected by its own type
     @Bean
+    @Primary
     public UserDetailsService userDetailsService() {
         // Lambda function to find user by email in the repository
         return username -> repository.findByEmail(username)
@@ -31,6 +49,15 @@ public class ApplicationConfig {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        // Group the token inserts written behind into JDBC batches, unless configured otherwise
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", 50);
+            properties.putIfAbsent("hibernate.order_inserts", true);
+        };
+    }
+
     @Bean
     public AuthenticationProvider authenticationProvider() {
         // Create a DaoAuthenticationProvider
@@ -49,10 +76,14 @@ public class ApplicationConfig {
         return config.getAuthenticationManager();
     }
 
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     public PasswordEncoder passwordEncoder() {
-        // Return a BCryptPasswordEncoder
-        return new BCryptPasswordEncoder();
+        // Return a BCryptPasswordEncoder running on a bounded executor
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(bcryptStrength),
+                bcryptThreads,
+                bcryptQueueCapacity
+        );
     }
 
 }
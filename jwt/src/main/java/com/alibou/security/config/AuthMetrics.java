@@ -0,0 +1,146 @@
+package com.alibou.security.config;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Timers for each stage of the authentication pipeline, tagged by stage and outcome: auth.stage{stage,outcome}
+// Every timer is registered up front and looked up by ordinal, so recording costs two nanoTime calls and a Timer update
+// Scrape them at /actuator/prometheus, exposed by default in JwtApplication; the endpoint requires the Bearer
+// token of an ADMIN user, and management.server.port can also keep it off the public port
+@Component
+public class AuthMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthMetrics.class);
+
+    private static final ThreadLocal<StringBuilder> TRACE = new ThreadLocal<>(); // Stages of the sampled request
+
+    private final MeterRegistry registry;
+
+    private final Timer[][] timers = new Timer[Stage.values().length][Outcome.values().length]; // stage, outcome -> timer
+
+    private final double traceSampleRate;
+
+    public AuthMetrics(
+            MeterRegistry registry,
+            // Share of requests whose stages are also logged one by one; 0 turns tracing off
+            @Value("${jwt.metrics.trace-sample-rate:0}") double traceSampleRate
+    ) {
+        this.registry = registry;
+        this.traceSampleRate = traceSampleRate;
+        for (Stage stage : Stage.values()) {
+            for (Outcome outcome : stage.outcomes) {
+                timers[stage.ordinal()][outcome.ordinal()] = timer(stage, outcome);
+            }
+        }
+    }
+
+    // Starts timing a stage
+    public long start() {
+        return System.nanoTime();
+    }
+
+    // Starts timing a whole request, and picks it for tracing at the configured sample rate
+    public long startRequest() {
+        if (traceSampleRate > 0) {
+            if (ThreadLocalRandom.current().nextDouble() < traceSampleRate) {
+                TRACE.set(new StringBuilder());
+            } else {
+                TRACE.remove(); // In case the previous request on this thread ended without its request stage
+            }
+        }
+        return System.nanoTime();
+    }
+
+    // Records a stage started with start() or startRequest(); recording a request stage ends its trace
+    public void record(Stage stage, Outcome outcome, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        var timer = timers[stage.ordinal()][outcome.ordinal()];
+        if (timer == null) {
+            timer = timers[stage.ordinal()][outcome.ordinal()] = timer(stage, outcome); // An outcome not declared for the stage
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        if (traceSampleRate > 0) {
+            trace(stage, outcome, nanos);
+        }
+    }
+
+    public static Outcome outcomeOf(JwtException e) {
+        if (e instanceof ExpiredJwtException) {
+            return Outcome.EXPIRED;
+        }
+        if (e instanceof SignatureException) {
+            return Outcome.BAD_SIGNATURE; // Also covers io.jsonwebtoken.security.SignatureException
+        }
+        return Outcome.MALFORMED;
+    }
+
+    private Timer timer(Stage stage, Outcome outcome) {
+        return Timer.builder("auth.stage")
+                .description("Time spent in each stage of the authentication pipeline")
+                .tag("stage", stage.tag)
+                .tag("outcome", outcome.tag)
+                .register(registry);
+    }
+
+    private static void trace(Stage stage, Outcome outcome, long nanos) {
+        var trace = TRACE.get();
+        if (trace == null) {
+            return;
+        }
+        trace.append(' ').append(stage.tag).append('=').append(outcome.tag)
+                .append(':').append(nanos / 1_000).append("us");
+        if (stage.request) {
+            TRACE.remove();
+            log.info("auth trace:{}", trace);
+        }
+    }
+
+    public enum Stage {
+        // Whole requests
+        FILTER(true, Outcome.VALID, Outcome.NO_TOKEN, Outcome.EXPIRED, Outcome.BAD_SIGNATURE, Outcome.MALFORMED,
+                Outcome.REVOKED, Outcome.UNKNOWN_USER),
+        LOGIN(true, Outcome.VALID, Outcome.BAD_CREDENTIALS, Outcome.OVERLOADED, Outcome.THROTTLED),
+        REGISTER(true, Outcome.VALID, Outcome.OVERLOADED, Outcome.THROTTLED),
+        LOGOUT(true, Outcome.VALID, Outcome.NO_TOKEN, Outcome.EXPIRED, Outcome.BAD_SIGNATURE, Outcome.MALFORMED,
+                Outcome.OVERLOADED),
+        REFRESH(true, Outcome.VALID, Outcome.EXPIRED, Outcome.BAD_SIGNATURE, Outcome.MALFORMED, Outcome.REVOKED,
+                Outcome.REUSED, Outcome.UNKNOWN_USER),
+        // Stages within a request
+        VERIFY_SIGNATURE(false, Outcome.VALID, Outcome.EXPIRED, Outcome.BAD_SIGNATURE, Outcome.MALFORMED),
+        SIGN(false, Outcome.VALID),
+        RATE_LIMIT(false, Outcome.VALID, Outcome.THROTTLED),
+        LOAD_USER(false, Outcome.VALID, Outcome.UNKNOWN_USER),
+        TOKEN_STATE(false, Outcome.VALID, Outcome.REVOKED),
+        DENYLIST(false, Outcome.VALID, Outcome.REVOKED),
+        PASSWORD_CHECK(false, Outcome.VALID, Outcome.BAD_CREDENTIALS, Outcome.OVERLOADED),
+        PASSWORD_HASH(false, Outcome.VALID, Outcome.OVERLOADED);
+
+        private final String tag;
+        private final boolean request;
+        private final Outcome[] outcomes;
+
+        Stage(boolean request, Outcome... outcomes) {
+            this.tag = name().toLowerCase(Locale.ROOT);
+            this.request = request;
+            this.outcomes = outcomes;
+        }
+    }
+
+    public enum Outcome {
+        VALID, NO_TOKEN, EXPIRED, REVOKED, REUSED, BAD_SIGNATURE, MALFORMED, UNKNOWN_USER, BAD_CREDENTIALS, OVERLOADED,
+        THROTTLED;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+}
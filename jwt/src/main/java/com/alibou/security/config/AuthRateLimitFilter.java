@@ -0,0 +1,60 @@
+package com.alibou.security.config;
+
+import com.alibou.security.config.AuthMetrics.Outcome;
+import com.alibou.security.config.AuthMetrics.Stage;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Throttles the credential endpoints per client address, before any body parsing, hashing or database work
+// Behind a proxy, set server.forward-headers-strategy so that the remote address is the client's, not the proxy's
+@Component
+@RequiredArgsConstructor
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS = Set.of(
+            "/api/v1/auth/register",
+            "/api/v1/auth/authenticate",
+            "/api/v1/auth/refresh"
+    );
+
+    private final AuthRateLimiter rateLimiter;
+
+    private final AuthMetrics metrics;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !LIMITED_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        final long start = metrics.start();
+        final long retryAfterSeconds = rateLimiter.tryAcquireForClient(request.getRemoteAddr());
+        if (retryAfterSeconds > 0) {
+            metrics.record(Stage.RATE_LIMIT, Outcome.THROTTLED, start);
+            // Written here rather than thrown, as the exception handler only sees exceptions from controllers
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Too many attempts, retry in " + retryAfterSeconds + "s");
+            return;
+        }
+        metrics.record(Stage.RATE_LIMIT, Outcome.VALID, start);
+        filterChain.doFilter(request, response);
+    }
+}
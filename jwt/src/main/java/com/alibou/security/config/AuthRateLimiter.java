@@ -0,0 +1,117 @@
+package com.alibou.security.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets for the login and registration endpoints, one per client address and one per account email
+// Buckets live in bounded Caffeine caches and are dropped once idle for a full refill period, when they are full anyway
+@Component
+public class AuthRateLimiter {
+
+    private final boolean enabled;
+
+    private final Limit clientLimit;
+
+    private final Limit accountLimit;
+
+    private final Cache<String, TokenBucket> clientBuckets;
+
+    private final Cache<String, TokenBucket> accountBuckets;
+
+    public AuthRateLimiter(
+            @Value("${jwt.rate-limit.enabled:true}") boolean enabled,
+            // Requests a client address may burst, refilled evenly over the period
+            @Value("${jwt.rate-limit.client.capacity:20}") int clientCapacity,
+            @Value("${jwt.rate-limit.client.refill-period:PT1M}") Duration clientRefillPeriod,
+            // Attempts an account may burst, whatever the address; keeps distributed guessing at a slow pace
+            @Value("${jwt.rate-limit.account.capacity:5}") int accountCapacity,
+            @Value("${jwt.rate-limit.account.refill-period:PT1M}") Duration accountRefillPeriod,
+            // Buckets kept per cache; the least recently used ones are evicted first, as if they were full
+            @Value("${jwt.rate-limit.maximum-size:100000}") long maximumSize
+    ) {
+        this.enabled = enabled;
+        this.clientLimit = new Limit(clientCapacity, clientRefillPeriod);
+        this.accountLimit = new Limit(accountCapacity, accountRefillPeriod);
+        this.clientBuckets = buckets(clientRefillPeriod, maximumSize);
+        this.accountBuckets = buckets(accountRefillPeriod, maximumSize);
+    }
+
+    // Takes a token for a client address; returns 0 when granted, otherwise the seconds to wait before retrying
+    public long tryAcquireForClient(String address) {
+        if (!enabled || address == null) {
+            return 0;
+        }
+        return clientBuckets.get(address, key -> new TokenBucket()).tryAcquire(clientLimit);
+    }
+
+    // Same for an account, keyed by its case-insensitive email
+    public long tryAcquireForAccount(String email) {
+        if (!enabled || email == null) {
+            return 0;
+        }
+        return accountBuckets.get(email.toLowerCase(Locale.ROOT), key -> new TokenBucket()).tryAcquire(accountLimit);
+    }
+
+    // Throws RateLimitExceededException when the account has no token left
+    public void checkAccount(String email) {
+        long retryAfterSeconds = tryAcquireForAccount(email);
+        if (retryAfterSeconds > 0) {
+            throw new RateLimitExceededException(retryAfterSeconds);
+        }
+    }
+
+    private static Cache<String, TokenBucket> buckets(Duration refillPeriod, long maximumSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize) // Bound the memory a spray of addresses or emails can take
+                .expireAfterAccess(refillPeriod) // An idle bucket has refilled, forgetting it changes nothing
+                .build();
+    }
+
+    private record Limit(long intervalNanos, long burstNanos) {
+
+        // Fails at startup on a limit that would divide by zero or never refill
+        Limit(int capacity, Duration refillPeriod) {
+            this(intervalNanos(capacity, refillPeriod), intervalNanos(capacity, refillPeriod) * (capacity - 1L));
+        }
+
+        private static long intervalNanos(int capacity, Duration refillPeriod) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Rate limit capacity must be positive, was " + capacity);
+            }
+            if (refillPeriod.toNanos() < capacity) {
+                throw new IllegalArgumentException("Rate limit refill period too short: " + refillPeriod);
+            }
+            return refillPeriod.toNanos() / capacity;
+        }
+    }
+
+    // Lock-free bucket storing a single timestamp, the time at which it will be full again (GCRA)
+    // Taking a token moves that time one interval forward; it may run at most a burst ahead of now
+    private static final class TokenBucket {
+
+        private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+
+        long tryAcquire(Limit limit) {
+            while (true) {
+                long now = System.nanoTime();
+                long current = fullAt.get();
+                long start = current - now < 0 ? now : current; // A bucket full since then starts from now
+                long ahead = start - now;
+                if (ahead > limit.burstNanos()) {
+                    // Empty: wait until one token has refilled, rounded up to whole seconds for Retry-After
+                    return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(ahead - limit.burstNanos() + 999_999_999));
+                }
+                if (fullAt.compareAndSet(current, start + limit.intervalNanos())) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.alibou.security.config;
+
+import com.alibou.security.config.AuthMetrics.Outcome;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+// Reads the token of a "Bearer" Authorization header, for the JWT filter and the logout handler
+// check() rejects malformed, oversized and visibly expired tokens without allocating and before any signature work;
+// its exp peek is unverified, so it is only ever used to reject a token, never to accept one
+@Component
+public class BearerTokenExtractor {
+
+    private static final String PREFIX = "Bearer ";
+
+    private static final byte[] BASE64_URL = new byte[128]; // char -> 6 bits, or -1 outside the base64url alphabet
+
+    static {
+        Arrays.fill(BASE64_URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final int maxTokenLength;
+
+    public BearerTokenExtractor(
+            @Value("${jwt.max-token-length:4096}") int maxTokenLength // Longer tokens are rejected unread
+    ) {
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    // Returns VALID when the header carries a token worth verifying, NO_TOKEN, MALFORMED or EXPIRED otherwise
+    public Outcome check(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith(PREFIX)) {
+            return Outcome.NO_TOKEN;
+        }
+        int length = authHeader.length() - PREFIX.length();
+        if (length == 0 || length > maxTokenLength) {
+            return Outcome.MALFORMED;
+        }
+        // Three non-empty base64url segments: header.payload.signature
+        int firstDot = -1;
+        int secondDot = -1;
+        for (int i = PREFIX.length(); i < authHeader.length(); i++) {
+            char c = authHeader.charAt(i);
+            if (c == '.') {
+                if (firstDot < 0) {
+                    firstDot = i;
+                } else if (secondDot < 0) {
+                    secondDot = i;
+                } else {
+                    return Outcome.MALFORMED;
+                }
+            } else if (c >= 128 || BASE64_URL[c] < 0) {
+                return Outcome.MALFORMED;
+            }
+        }
+        if (firstDot <= PREFIX.length() || secondDot <= firstDot + 1 || secondDot == authHeader.length() - 1) {
+            return Outcome.MALFORMED;
+        }
+        long expiration = peekExpiration(authHeader, firstDot + 1, secondDot);
+        if (expiration >= 0 && expiration * 1000 < System.currentTimeMillis()) {
+            return Outcome.EXPIRED;
+        }
+        return Outcome.VALID;
+    }
+
+    // Returns the token of a header that passed check()
+    public String token(String authHeader) {
+        return authHeader.substring(PREFIX.length());
+    }
+
+    // Decodes the payload segment byte by byte, looking for a top-level "exp" number; -1 when there is none
+    private static long peekExpiration(String source, int from, int to) {
+        var scanner = new ExpirationScanner();
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = from; i < to && !scanner.done; i++) {
+            bits = (bits << 6) | BASE64_URL[source.charAt(i)];
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                scanner.accept((bits >> bitCount) & 0xFF);
+            }
+        }
+        scanner.accept(' '); // Ends a number that closes the payload
+        return scanner.expiration;
+    }
+
+    // Minimal JSON state machine: tracks strings and nesting depth, and reads the value of the "exp" key at depth 1
+    // Short-lived and never shared, so escape analysis usually removes its allocation once the code is compiled
+    private static final class ExpirationScanner {
+
+        private static final String KEY = "exp";
+
+        private int depth;
+        private boolean inString;
+        private boolean escaped;
+        private int keyMatched; // Characters of KEY matched by the current string, -1 once it differs
+        private boolean awaitingColon;
+        private boolean readingValue;
+        private boolean valueStarted;
+        private long value;
+        private boolean done;
+        private long expiration = -1;
+
+        void accept(int b) {
+            if (done) {
+                return;
+            }
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                    keyMatched = -1;
+                } else if (b == '"') {
+                    inString = false;
+                    awaitingColon = depth == 1 && keyMatched == KEY.length();
+                } else if (keyMatched >= 0) {
+                    keyMatched = keyMatched < KEY.length() && b == KEY.charAt(keyMatched) ? keyMatched + 1 : -1;
+                }
+                return;
+            }
+            boolean whitespace = b == ' ' || b == '\t' || b == '\n' || b == '\r';
+            if (readingValue) {
+                if (b >= '0' && b <= '9' && value < 1_000_000_000_000L) {
+                    value = value * 10 + (b - '0');
+                    valueStarted = true;
+                    return;
+                }
+                if (whitespace && !valueStarted) {
+                    return;
+                }
+                // A number ends the scan; anything else (a decimal, a string, an overflow) leaves exp to jjwt
+                expiration = valueStarted && (whitespace || b == ',' || b == '}') ? value : -1;
+                done = true;
+                return;
+            }
+            if (awaitingColon) {
+                if (whitespace) {
+                    return;
+                }
+                awaitingColon = false;
+                if (b == ':') {
+                    readingValue = true;
+                    return;
+                }
+            }
+            switch (b) {
+                case '"' -> {
+                    inString = true;
+                    keyMatched = 0;
+                }
+                case '{', '[' -> depth++;
+                case '}', ']' -> depth--;
+                default -> {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.alibou.security.config;
+
+import com.alibou.security.user.UserChangedEvent;
+import com.alibou.security.user.UserPrincipal;
+import com.alibou.security.user.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+// UserDetailsService for the JWT filter, backed by a cache of UserPrincipal snapshots
+// Password checks still go through ApplicationConfig.userDetailsService(), the @Primary one, which reads the full User
+@Service
+public class CachedUserDetailsService implements UserDetailsService {
+
+    private final UserRepository repository;
+
+    private final Cache<String, UserPrincipal> cache;
+
+    public CachedUserDetailsService(
+            UserRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.user-cache.maximum-size:10000}") long maximumSize,
+            @Value("${jwt.user-cache.time-to-live:PT10M}") Duration timeToLive
+    ) {
+        this.repository = repository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize) // Bound the number of cached users
+                .expireAfterWrite(timeToLive) // Reload each user at least once per time to live
+                .recordStats() // Count hits, misses and evictions
+                .build();
+        // Exposes cache_gets{result=hit|miss}, cache_evictions and cache_size for cache=user-details
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-details");
+    }
+
+    @Override
+    public UserPrincipal loadUserByUsername(String username) {
+        var principal = cache.get(username, email -> repository.findByEmail(email)
+                .map(UserPrincipal::from)
+                .orElse(null)); // Unknown users are not cached
+        if (principal == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        return principal;
+    }
+
+    // Drops the snapshot of a user that was registered, updated or revoked
+    // Runs after the change commits, so no request can cache the old row again, and not at all on a rollback
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        cache.invalidate(event.email());
+        if (event.previousEmail() != null) {
+            cache.invalidate(event.previousEmail()); // The old email must stop authenticating at once
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.alibou.security.config;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Converts public verification keys to JSON Web Keys (RFC 7517, RFC 7518 section 6)
+final class Jwks {
+
+    private Jwks() {
+    }
+
+    static Map<String, Object> toJwk(JwtKeyRing.SigningKey key) {
+        var jwk = new LinkedHashMap<String, Object>();
+        if (key.verificationKey() instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(rsa.getModulus(), 0));
+            jwk.put("e", base64Url(rsa.getPublicExponent(), 0));
+        } else if (key.verificationKey() instanceof ECPublicKey ec) {
+            int size = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8; // 32 bytes for P-256
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-" + ec.getParams().getCurve().getField().getFieldSize());
+            jwk.put("x", base64Url(ec.getW().getAffineX(), size));
+            jwk.put("y", base64Url(ec.getW().getAffineY(), size));
+        } else {
+            throw new IllegalArgumentException("Not a public RSA or EC key: " + key.keyId());
+        }
+        jwk.put("kid", key.keyId());
+        jwk.put("use", "sig");
+        jwk.put("alg", key.algorithm().getValue());
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    // Unsigned big-endian bytes, left-padded to length when it is not 0
+    private static String base64Url(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length); // Drop the sign byte
+        }
+        if (length > bytes.length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
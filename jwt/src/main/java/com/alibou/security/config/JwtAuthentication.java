@@ -0,0 +1,67 @@
+package com.alibou.security.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+// Authentication set by the JWT filter: the user details, their shared authorities and optional request details
+// Unlike UsernamePasswordAuthenticationToken, it neither copies the authorities nor needs details, so one object per request
+public final class JwtAuthentication implements Authentication {
+
+    private final UserDetails principal;
+
+    private final Object details; // null unless jwt.auth.details.enabled
+
+    private boolean authenticated = true;
+
+    public JwtAuthentication(UserDetails principal, Object details) {
+        this.principal = principal;
+        this.details = details;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return principal.getAuthorities();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null; // The token has been verified, there is nothing left to check
+    }
+
+    @Override
+    public Object getDetails() {
+        return details;
+    }
+
+    @Override
+    public UserDetails getPrincipal() {
+        return principal;
+    }
+
+    @Override
+    public String getName() {
+        return principal.getUsername();
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    // Can only be revoked, as for any authenticated token
+    @Override
+    public void setAuthenticated(boolean authenticated) {
+        if (authenticated) {
+            throw new IllegalArgumentException("Cannot mark a JWT authentication as trusted, create a new one instead");
+        }
+        this.authenticated = false;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [Principal=" + getName() + ", Authorities=" + getAuthorities() + "]";
+    }
+}
@@ -1,16 +1,22 @@
 package com.alibou.security.config;
 
-import com.alibou.security.token.TokenRepository;
+import com.alibou.security.config.AuthMetrics.Outcome;
+import com.alibou.security.config.AuthMetrics.Stage;
+import com.alibou.security.token.JtiDenylist;
+import com.alibou.security.token.TokenStateStore;
+import com.alibou.security.user.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,40 +28,91 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService; // Injected JwtService
-    private final UserDetailsService userDetailsService; // Injected UserDetailsService
-    private final TokenRepository tokenRepository;
+    private final BearerTokenExtractor bearerTokenExtractor; // Reads and pre-checks the Authorization header
+    private final CachedUserDetailsService userDetailsService; // Injected UserDetailsService, backed by a cache
+    private final TokenStateStore tokenStateStore; // In-memory index of the active tokens
+    private final JtiDenylist jtiDenylist; // Revoked token ids of every node, checked in both modes
+    private final AuthMetrics metrics; // Per-stage timers, tagged by outcome
+
+    // When enabled, tokens carrying a role and a token id are trusted without any database lookup
+    // On by default since access tokens are short-lived; disable to check every token against the token store
+    @Value("${jwt.stateless.enabled:true}")
+    private boolean statelessEnabled;
+
+    // Remote address and session id of the request, as authentication details; nothing in this app reads them
+    @Value("${jwt.auth.details.enabled:false}")
+    private boolean detailsEnabled;
+
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain
     ) throws ServletException, IOException {
+        final long start = metrics.startRequest(); // Times the whole authentication, see AuthMetrics
         final String authHeader = request.getHeader("Authorization"); // Gets the Authorization header
         final String jwt;
+        final Claims claims;
         final String userEmail;
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            filterChain.doFilter(request, response); // Pass the request and response if no JWT is found
+        final Outcome precheck = bearerTokenExtractor.check(authHeader); // Layout, size and exp, before any crypto
+        if (precheck != Outcome.VALID) {
+            metrics.record(Stage.FILTER, precheck, start);
+            filterChain.doFilter(request, response); // Pass the request on unauthenticated
+            return;
+        }
+        jwt = bearerTokenExtractor.token(authHeader); // Extracts the JWT token
+        try {
+            claims = jwtService.extractAllClaims(jwt); // Verifies the JWT once and reuses its claims
+        } catch (JwtException e) {
+            metrics.record(Stage.FILTER, AuthMetrics.outcomeOf(e), start);
+            filterChain.doFilter(request, response); // Rejected like a token that failed the pre-check
+            return;
+        }
+        if (jwtService.isRefreshToken(claims)) {
+            metrics.record(Stage.FILTER, Outcome.MALFORMED, start); // Refresh tokens only work at the refresh endpoint
+            filterChain.doFilter(request, response);
             return;
         }
-        jwt = authHeader.substring(7); // Extracts the JWT token
-        userEmail = jwtService.extractUsername(jwt); // Extracts the username from the JWT
+        userEmail = claims.getSubject(); // Extracts the username from the JWT
+        Outcome outcome = Outcome.MALFORMED; // Tokens without a subject
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail); // Loads user details
-            var isTokenValid = tokenRepository.findByToken(jwt)
-                    .map(t -> !t.isExpired() && !t.isRevoked())
-                    .orElse(false);
-            if (jwtService.isTokenValid(jwt, userDetails) && isTokenValid) { // Validates the JWT
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+            final UserDetails userDetails;
+            final boolean isTokenValid;
+            long stageStart = metrics.start();
+            if (statelessEnabled && claims.getId() != null && claims.get(JwtService.ROLE_CLAIM) != null) {
+                userDetails = UserPrincipal.from(claims); // Builds the user details from the verified claims
+                isTokenValid = !jtiDenylist.isRevoked(claims.getId()); // Checks revocation against the local denylist
+                metrics.record(Stage.DENYLIST, isTokenValid ? Outcome.VALID : Outcome.REVOKED, stageStart);
+            } else {
+                try {
+                    userDetails = this.userDetailsService.loadUserByUsername(userEmail); // Loads user details
+                } catch (UsernameNotFoundException e) {
+                    metrics.record(Stage.LOAD_USER, Outcome.UNKNOWN_USER, stageStart);
+                    metrics.record(Stage.FILTER, Outcome.UNKNOWN_USER, start);
+                    throw e;
+                }
+                metrics.record(Stage.LOAD_USER, Outcome.VALID, stageStart);
+                stageStart = metrics.start();
+                // The denylist first: it knows the revocations of every node, even before they are written
+                isTokenValid = (claims.getId() == null || !jtiDenylist.isRevoked(claims.getId()))
+                        && tokenStateStore.isActive(jwt); // Reads the table only for a token this node does not know
+                metrics.record(Stage.TOKEN_STATE, isTokenValid ? Outcome.VALID : Outcome.REVOKED, stageStart);
+            }
+            if (jwtService.isTokenValid(claims, userDetails) && isTokenValid) { // Validates the JWT
+                JwtAuthentication authToken = new JwtAuthentication(
                         userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                ); // Creates an authentication token
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                ); // Sets authentication details
+                        detailsEnabled ? detailsSource.buildDetails(request) : null
+                ); // Creates an authentication token, with the request details only when asked for
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                outcome = Outcome.VALID;
+            } else {
+                outcome = isTokenValid ? Outcome.EXPIRED : Outcome.REVOKED;
             }
+        } else if (userEmail != null) {
+            outcome = Outcome.VALID; // Already authenticated earlier in the chain
         }
+        metrics.record(Stage.FILTER, outcome, start);
         filterChain.doFilter(request, response); // Continues the filter chain
 
     }
@@ -0,0 +1,159 @@
+package com.alibou.security.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Holds the decoded signing keys, selected by the "kid" header of each token
+// Keys are swapped copy-on-write, so request threads only ever read a volatile snapshot without locking
+// HS256 keys are shared secrets; RS256 and ES256 keys sign with a private key, and their public keys are published as JWKS
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public JwtKeyRing(
+            @Value("${jwt.secret:}") String secret, // The secret key for JWT, used by HS256
+            @Value("${jwt.key-id:primary}") String keyId, // The key id written to the "kid" header
+            @Value("${jwt.signing.algorithm:HS256}") SignatureAlgorithm algorithm, // HS256, RS256 or ES256
+            @Value("${jwt.signing.private-key:}") String privateKey, // Base64 PKCS#8 key, PEM armor allowed
+            @Value("${jwt.signing.public-key:}") String publicKey // Base64 X.509 key, PEM armor allowed
+    ) {
+        this(configuredKey(secret, keyId, algorithm, privateKey, publicKey));
+    }
+
+    public JwtKeyRing(SigningKey activeKey) {
+        this.snapshot = Snapshot.of(Map.of(activeKey.keyId(), activeKey), activeKey);
+    }
+
+    // Returns the key new tokens are signed with
+    public SigningKey activeKey() {
+        return snapshot.active();
+    }
+
+    // Returns the public keys as a JSON Web Key Set, computed once per key change
+    public Map<String, Object> jwks() {
+        return snapshot.jwks();
+    }
+
+    // Adds a key and makes it the active one; tokens signed with older keys stay valid until retired
+    public synchronized void rotate(String keyId, String secret) {
+        rotate(hmacKey(keyId, secret));
+    }
+
+    public synchronized void rotate(SigningKey key) {
+        var keys = new HashMap<>(snapshot.keys());
+        keys.put(key.keyId(), key);
+        snapshot = Snapshot.of(Map.copyOf(keys), key);
+    }
+
+    // Removes a key, so tokens signed with it are no longer accepted
+    public synchronized void retire(String keyId) {
+        if (snapshot.active().keyId().equals(keyId)) {
+            throw new IllegalArgumentException("Cannot retire the active key: " + keyId);
+        }
+        var keys = new HashMap<>(snapshot.keys());
+        keys.remove(keyId);
+        snapshot = Snapshot.of(Map.copyOf(keys), snapshot.active());
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        var current = snapshot;
+        var keyId = header.getKeyId();
+        if (keyId == null) {
+            return current.active().verificationKey(); // Tokens issued before key ids were introduced
+        }
+        var key = current.keys().get(keyId);
+        if (key == null) {
+            throw new SignatureException("Unknown signing key id: " + keyId);
+        }
+        if (!key.algorithm().getValue().equals(header.getAlgorithm())) {
+            throw new SignatureException("Unexpected algorithm for key id " + keyId + ": " + header.getAlgorithm());
+        }
+        return key.verificationKey();
+    }
+
+    public static SigningKey hmacKey(String keyId, String secret) {
+        byte[] keyBytes = Decoders.BASE64.decode(secret); // Decode the secret key once
+        Key key = Keys.hmacShaKeyFor(keyBytes);
+        return new SigningKey(keyId, SignatureAlgorithm.HS256, key, key);
+    }
+
+    // Generates a new RS256 or ES256 key pair, e.g. for a rotation
+    public static SigningKey generateKey(String keyId, SignatureAlgorithm algorithm) {
+        var keyPair = Keys.keyPairFor(algorithm);
+        return new SigningKey(keyId, algorithm, keyPair.getPrivate(), keyPair.getPublic());
+    }
+
+    // Decodes an RS256 or ES256 key pair from base64 DER, PEM armor allowed
+    public static SigningKey asymmetricKey(String keyId, SignatureAlgorithm algorithm, String privateKey, String publicKey) {
+        try {
+            var keyFactory = KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC");
+            PrivateKey signingKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(der(privateKey)));
+            PublicKey verificationKey = keyFactory.generatePublic(new X509EncodedKeySpec(der(publicKey)));
+            return new SigningKey(keyId, algorithm, signingKey, verificationKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid " + algorithm.getValue() + " key pair for key id " + keyId, e);
+        }
+    }
+
+    private static SigningKey configuredKey(
+            String secret, String keyId, SignatureAlgorithm algorithm, String privateKey, String publicKey
+    ) {
+        if (algorithm == SignatureAlgorithm.HS256) {
+            return hmacKey(keyId, secret);
+        }
+        if (algorithm != SignatureAlgorithm.RS256 && algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalArgumentException("Unsupported signing algorithm: " + algorithm.getValue());
+        }
+        if (privateKey.isBlank() || publicKey.isBlank()) {
+            // Fine for a single node in development; tokens do not survive a restart and other nodes cannot verify them
+            log.warn("No {} key pair configured, generating one for this run only", algorithm.getValue());
+            return generateKey(keyId, algorithm);
+        }
+        return asymmetricKey(keyId, algorithm, privateKey, publicKey);
+    }
+
+    private static byte[] der(String key) {
+        return Base64.getMimeDecoder().decode(key.replaceAll("-----[A-Z ]+-----", ""));
+    }
+
+    public record SigningKey(String keyId, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+    }
+
+    private record Snapshot(Map<String, SigningKey> keys, SigningKey active, Map<String, Object> jwks) {
+
+        static Snapshot of(Map<String, SigningKey> keys, SigningKey active) {
+            var publicKeys = keys.values().stream()
+                    .filter(key -> key.verificationKey() instanceof PublicKey) // Never publish shared secrets
+                    .map(Jwks::toJwk)
+                    .toList();
+            return new Snapshot(keys, active, Map.of("keys", List.copyOf(publicKeys)));
+        }
+    }
+}
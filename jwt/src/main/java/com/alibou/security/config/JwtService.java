@@ -1,52 +1,119 @@
 package com.alibou.security.config;
 
+import com.alibou.security.user.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.UnsupportedJwtException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 // @Service annotation is used with classes that provide some business functionalities
 @Service
 public class JwtService {
 
-    // @Value annotation is used to inject values into fields
-    @Value("${jwt.secret}")
-    private String SECRET_KEY; // The secret key for JWT
+    public static final String USER_ID_CLAIM = "uid";
+
+    public static final String ROLE_CLAIM = "role";
+
+    public static final String TOKEN_USE_CLAIM = "token_use"; // Only present on refresh tokens
+
+    public static final String REFRESH_TOKEN_USE = "refresh";
+
+    private final JwtClaimsCache claimsCache; // Cache of already verified claims
+
+    private final JwtKeyRing keyRing; // Decoded signing keys, selected by key id
+
+    private final JwtParser parser; // Immutable and thread-safe, shared by all request threads
+
+    private final AuthMetrics metrics; // Times signing and signature verification
+
+    private final long accessTokenTtlMillis;
+
+    private final long refreshTokenTtlMillis;
+
+    public JwtService(
+            JwtClaimsCache claimsCache,
+            JwtKeyRing keyRing,
+            AuthMetrics metrics,
+            // Short enough that access tokens can be trusted from their signature until they expire
+            @Value("${jwt.access-token.time-to-live:PT5M}") Duration accessTokenTtl,
+            // Refresh tokens are checked against the database, and rotated on every use
+            @Value("${jwt.refresh-token.time-to-live:P7D}") Duration refreshTokenTtl
+    ) {
+        this.claimsCache = claimsCache;
+        this.keyRing = keyRing;
+        this.metrics = metrics;
+        this.accessTokenTtlMillis = accessTokenTtl.toMillis();
+        this.refreshTokenTtlMillis = refreshTokenTtl.toMillis();
+        this.parser = Jwts
+                .parserBuilder() // Build the JWT parser once
+                .setSigningKeyResolver(keyRing) // Resolve the verification key from the "kid" header
+                .build();
+    }
 
     // Method to extract the username from the token
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
-    // Method to generate a token for a user
+    // Method to generate an access token for a user
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            // Lets the filter authenticate from the claims alone in stateless mode
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(ROLE_CLAIM, user.getRole().name());
+        }
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(
             Map<String, Object> extraClaims,
             UserDetails userDetails
     ) {
-        return Jwts
+        return buildToken(extraClaims, userDetails, accessTokenTtlMillis);
+    }
+
+    // Method to generate a refresh token, only accepted by the refresh endpoint
+    public String generateRefreshToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(TOKEN_USE_CLAIM, REFRESH_TOKEN_USE);
+        return buildToken(claims, user, refreshTokenTtlMillis);
+    }
+
+    private String buildToken(
+            Map<String, Object> extraClaims,
+            UserDetails userDetails,
+            long ttlMillis
+    ) {
+        final var key = keyRing.activeKey();
+        final long start = metrics.start();
+        final String token = Jwts
                 .builder() // start building the JWT
+                .setHeaderParam(JwsHeader.KEY_ID, key.keyId()) // Tell the parser which key signed the JWT
                 .setClaims(extraClaims)
+                .setId(UUID.randomUUID().toString()) // Set the token id, used to revoke the token
                 .setSubject(userDetails.getUsername()) // set the subject to the username
                 .setIssuedAt(new Date(System.currentTimeMillis())) // Set the issued at time to now
-                // Set the expiration time to 24 hours from now
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 24))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256) // Sign the JWT with the secret key
+                // Set the expiration time from the time to live of the token type
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .signWith(key.signingKey(), key.algorithm()) // Sign the JWT with the active key
                 .compact(); // Build the JWT and serialize it to a compact, URL-safe strin
+        metrics.record(AuthMetrics.Stage.SIGN, AuthMetrics.Outcome.VALID, start);
+        return token;
     }
 
     // Method to check if a token is valid for a user
@@ -55,6 +122,12 @@ public class JwtService {
         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
     }
 
+    // Method to check if already verified claims are valid for a user, without parsing the token again
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && claims.getExpiration().getTime() >= System.currentTimeMillis();
+    }
+
     // Method to chekc if a token is expired
     private boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
@@ -66,25 +139,47 @@ public class JwtService {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
 
-    // method to extract all claims from the token
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder() // Start building a JWT parser
-                .setSigningKey(getSignInKey()) // Set the signing key
-                .build() // Build the JWT parser
-                .parseClaimsJws(token) // Parse the claims from the token
-                .getBody(); // Get the Body of the JWT
+    // Method to extract all claims from the token, verifying the signature only on a cache miss
+    public Claims extractAllClaims(String token) {
+        return claimsCache.get(token, this::parseClaims);
+    }
+
+    // Method to verify a refresh token; its claims are not cached, as each refresh token is used only once
+    public Claims extractRefreshClaims(String token) {
+        final Claims claims = parseClaims(token);
+        if (!isRefreshToken(claims)) {
+            throw new UnsupportedJwtException("Not a refresh token");
+        }
+        return claims;
     }
 
-    // Method to get the signing key
+    public boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN_USE.equals(claims.get(TOKEN_USE_CLAIM));
+    }
+
+    // Method to stop accepting tokens signed with a key, including the ones already cached
+    public void retireSigningKey(String keyId) {
+        keyRing.retire(keyId);
+        claimsCache.invalidateAll();
+    }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY); // Decode the secret key
-        return Keys.hmacShaKeyFor(keyBytes);
+    // method to parse and verify all claims from the token
+    Claims parseClaims(String token) {
+        final long start = metrics.start();
+        try {
+            final Claims claims = parser
+                    .parseClaimsJws(token) // Parse the claims from the token
+                    .getBody(); // Get the Body of the JWT
+            metrics.record(AuthMetrics.Stage.VERIFY_SIGNATURE, AuthMetrics.Outcome.VALID, start);
+            return claims;
+        } catch (JwtException e) {
+            metrics.record(AuthMetrics.Stage.VERIFY_SIGNATURE, AuthMetrics.outcomeOf(e), start);
+            throw e;
+        }
     }
 
 
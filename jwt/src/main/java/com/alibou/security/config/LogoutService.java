@@ -1,37 +1,80 @@
 package com.alibou.security.config;
 
+import com.alibou.security.token.JtiDenylist;
+import com.alibou.security.token.RevokedTokenId;
 import com.alibou.security.token.TokenRepository;
+import com.alibou.security.token.TokenStateStore;
+import com.alibou.security.token.TokenWriteBehindQueue;
+import com.alibou.security.token.TokenWritesOverloadedException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class LogoutService implements LogoutHandler {
 
+    private final JwtService jwtService;
+
+    private final BearerTokenExtractor bearerTokenExtractor;
+
+    private final TokenStateStore tokenStateStore;
+
+    private final TokenWriteBehindQueue tokenWriteBehindQueue;
+
     private final TokenRepository tokenRepository;
 
+    private final JtiDenylist jtiDenylist;
+
+    private final AuthMetrics metrics;
+
     @Override
     public void logout(
             HttpServletRequest request,
             HttpServletResponse response,
             Authentication authentication
     ) {
+        final long start = metrics.startRequest();
         final String authHeader = request.getHeader("Authorization"); // Gets the Authorization header
         final String jwt;
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return;
+        final AuthMetrics.Outcome precheck = bearerTokenExtractor.check(authHeader);
+        if (precheck != AuthMetrics.Outcome.VALID) {
+            metrics.record(AuthMetrics.Stage.LOGOUT, precheck, start);
+            return; // Missing, malformed or expired tokens cannot be used anyway
+        }
+        jwt = bearerTokenExtractor.token(authHeader); // Extracts the JWT token
+        tokenStateStore.revoke(jwt); // Takes effect on the next request, before the database is updated
+        final Claims claims;
+        try {
+            claims = jwtService.extractAllClaims(jwt);
+        } catch (JwtException e) {
+            metrics.record(AuthMetrics.Stage.LOGOUT, AuthMetrics.outcomeOf(e), start);
+            return; // Expired or forged tokens cannot be used anyway
         }
-        jwt = authHeader.substring(7); // Extracts the JWT token
-        var storedToken = tokenRepository.findByToken(jwt)
-                .orElse(null);
-        if (storedToken != null) {
-            storedToken.setExpired(true);
-            storedToken.setRevoked(true);
-            tokenRepository.save(storedToken);
+        var userId = claims.get(JwtService.USER_ID_CLAIM, Integer.class);
+        if (userId != null) {
+            tokenRepository.revokeRefreshTokensByUser(userId); // Otherwise the session could be refreshed back
+        }
+        try {
+            // Applied here at once, and on the other nodes once the queue is flushed and they poll
+            jtiDenylist.revokeEverywhere(List.of(new RevokedTokenId(claims.getId(), claims.getExpiration().toInstant())));
+            tokenWriteBehindQueue.revoke(jwt);
+        } catch (TokenWritesOverloadedException e) {
+            // Revoked on this node already, but not saved nor published: the client retries so the others catch up
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            metrics.record(AuthMetrics.Stage.LOGOUT, AuthMetrics.Outcome.OVERLOADED, start);
+            return;
         }
+        metrics.record(AuthMetrics.Stage.LOGOUT, AuthMetrics.Outcome.VALID, start);
     }
 }
@@ -0,0 +1,9 @@
+package com.alibou.security.config;
+
+// Thrown when the password hashing queue is full; the client should retry later
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    public PasswordHashingOverloadedException() {
+        super("Too many concurrent logins, retry later");
+    }
+}
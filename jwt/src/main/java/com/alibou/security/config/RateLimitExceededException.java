@@ -0,0 +1,15 @@
+package com.alibou.security.config;
+
+import lombok.Getter;
+
+// Thrown when a client or an account has used up its attempts; the client should retry after the given delay
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("Too many attempts, retry in " + retryAfterSeconds + "s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,5 +1,6 @@
 package com.alibou.security.config;
 
+import com.alibou.security.user.Role;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,6 +23,8 @@ public class SecurityConfiguration {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
 
+    private final AuthRateLimitFilter authRateLimitFilter;
+
     private final AuthenticationProvider authenticationProvider;
 
     private final LogoutHandler logoutHandler;
@@ -37,10 +40,13 @@ public class SecurityConfiguration {
                 .disable()
                 // Allowing authorization for HTTP requests
                 .authorizeHttpRequests()
-                // Matching requests with the specified patterns
-                .requestMatchers("/api/v1/auth/**")
+                // Matching requests with the specified patterns; public keys and health are read by other services
+                .requestMatchers("/api/v1/auth/**", "/.well-known/jwks.json", "/actuator/health")
                 // Permitting all requests matching the specified patterns
                 .permitAll()
+                // The other endpoints, /actuator/prometheus included, expose login and failure counts: admins only
+                .requestMatchers("/actuator/**")
+                .hasAuthority(Role.ADMIN.name())
                 // Any request needs to be authenticated
                 .anyRequest()
                 .authenticated()
@@ -53,6 +59,8 @@ public class SecurityConfiguration {
                 .authenticationProvider(authenticationProvider)
                 // Adding JwtAuthenticationFilter before UsernamePasswordAuthenticationFilter
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // Throttling the credential endpoints ahead of any token or password work
+                .addFilterBefore(authRateLimitFilter, JwtAuthenticationFilter.class)
                 .logout()
                 .logoutUrl("/api/v1/auth/logout")
                 .addLogoutHandler(logoutHandler)
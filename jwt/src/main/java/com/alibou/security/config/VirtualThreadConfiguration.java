@@ -0,0 +1,52 @@
+package com.alibou.security.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Opt-in virtual-thread mode (jwt.virtual-threads.enabled=true), which needs a Java 21 runtime
+// Tomcat then runs every request, and so AuthenticationService and its blocking JDBC calls, on its own virtual thread
+@Configuration
+@ConditionalOnProperty(name = "jwt.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        var executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    // Static, so the post processor is registered before the DataSource is created
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(
+            // Defaults to Hikari's default pool size, so the pool never has more waiters than connections
+            @Value("${jwt.virtual-threads.jdbc-max-concurrency:10}") int maxConcurrency,
+            @Value("${jwt.virtual-threads.jdbc-acquire-timeout:30000}") long acquireTimeoutMillis
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // The project still compiles for Java 17, so the Java 21 factory method is looked up at runtime
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("jwt.virtual-threads.enabled requires Java 21 or later", e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.alibou.security.token;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Revocation transport over the token_revocation table: publishing inserts rows, every node polls them by id
+// A revocation reaches the other nodes within one poll interval, and requests never wait on the database
+// Ids are handed out before their transactions commit, so a skipped id may still show up: each gap in the ids
+// read is re-read on every poll until its rows are all there or the gap timeout passes, as after a rollback
+@Component
+@ConditionalOnProperty(name = "jwt.revocation.transport", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcRevocationTransport implements RevocationTransport {
+
+    private final TokenRevocationRepository repository;
+
+    private final int batchSize;
+
+    private final Duration gapTimeout;
+
+    private volatile Consumer<RevokedTokenId> listener;
+
+    // Only read and written under the lock of subscribe() and poll()
+    private long lastSeenId; // Highest id read; polls resume after it
+
+    private final List<Gap> gaps = new ArrayList<>(); // Ids below lastSeenId not read yet
+
+    public JdbcRevocationTransport(
+            TokenRevocationRepository repository,
+            @Value("${jwt.revocation.batch-size:1000}") int batchSize,
+            // How long a missing id is waited for; longer than any transaction inserting revocations
+            @Value("${jwt.revocation.gap-timeout:PT1M}") Duration gapTimeout
+    ) {
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+    }
+
+    @Override
+    public void publish(Collection<RevokedTokenId> revocations) {
+        if (revocations.isEmpty()) {
+            return;
+        }
+        var now = Instant.now();
+        repository.saveAll(revocations.stream()
+                .map(revoked -> TokenRevocation.builder()
+                        .jti(revoked.jti())
+                        .expiresAt(revoked.expiresAt())
+                        .revokedAt(now)
+                        .build())
+                .toList());
+    }
+
+    // Replays the revocations still in force, then hands over to the poller
+    @Override
+    public synchronized void subscribe(Consumer<RevokedTokenId> listener) {
+        var lastId = repository.findMaxId(); // Read first, so nothing committed during the replay is skipped
+        this.lastSeenId = lastId != null ? lastId : 0;
+        // Among the newest ids, the ones the replay did not see may belong to transactions still open
+        long previousId = Math.max(0, lastSeenId - batchSize);
+        for (TokenRevocation revocation : repository.findByExpiresAtAfterOrderByIdAsc(Instant.now())) {
+            listener.accept(revokedId(revocation));
+            long id = revocation.getId();
+            if (id > previousId && id <= lastSeenId) {
+                addGap(previousId, id);
+                previousId = id;
+            }
+        }
+        addGap(previousId, lastSeenId + 1);
+        this.listener = listener;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval:1000}")
+    public synchronized void poll() {
+        var current = listener;
+        if (current == null) {
+            return;
+        }
+        while (true) {
+            var rows = repository.findByIdGreaterThanOrderByIdAsc(lastSeenId, PageRequest.of(0, batchSize));
+            for (TokenRevocation revocation : rows) {
+                long id = revocation.getId();
+                addGap(lastSeenId, id);
+                current.accept(revokedId(revocation));
+                lastSeenId = id;
+            }
+            if (rows.size() < batchSize) {
+                break; // Caught up
+            }
+        }
+        recheckGaps(current);
+    }
+
+    // Applies the rows committed inside the gaps since the last poll; applying one twice is harmless
+    private void recheckGaps(Consumer<RevokedTokenId> current) {
+        var now = Instant.now();
+        gaps.removeIf(gap -> {
+            var rows = repository.findByIdBetweenOrderByIdAsc(gap.from(), gap.to());
+            rows.forEach(revocation -> current.accept(revokedId(revocation)));
+            return rows.size() == gap.to() - gap.from() + 1 || now.isAfter(gap.deadline());
+        });
+    }
+
+    private static RevokedTokenId revokedId(TokenRevocation revocation) {
+        return new RevokedTokenId(revocation.getJti(), revocation.getExpiresAt());
+    }
+
+    // Records the ids strictly between two ids read, if any
+    private void addGap(long readId, long nextReadId) {
+        if (nextReadId > readId + 1) {
+            gaps.add(new Gap(readId + 1, nextReadId - 1, Instant.now().plus(gapTimeout)));
+        }
+    }
+
+    private record Gap(long from, long to, Instant deadline) {
+    }
+}
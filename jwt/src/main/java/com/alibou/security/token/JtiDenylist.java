@@ -0,0 +1,67 @@
+package com.alibou.security.token;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Local denylist of revoked token ids (jti), used by the stateless authentication mode
+// An entry only has to outlive the token it revokes, so the list stays as small as the recent revocations
+// Revocations made on other nodes arrive through the RevocationTransport, so lookups never leave the node
+@Component
+@RequiredArgsConstructor
+public class JtiDenylist implements SmartInitializingSingleton {
+
+    private final TokenRepository tokenRepository;
+
+    private final RevocationTransport revocationTransport;
+
+    private final TokenWriteBehindQueue tokenWriteBehindQueue;
+
+    private final Map<String, Long> revokedIds = new ConcurrentHashMap<>(); // jti -> expiration time
+
+    public boolean isRevoked(String jti) {
+        return revokedIds.containsKey(jti);
+    }
+
+    public void revoke(String jti, long expiration) {
+        if (jti != null && expiration > System.currentTimeMillis()) {
+            revokedIds.put(jti, expiration);
+        }
+    }
+
+    // Revokes token ids on this node at once, and on the other nodes once the queue is flushed and they poll
+    // Throws TokenWritesOverloadedException when the queue is full; this node has applied them all the same
+    public void revokeEverywhere(Collection<RevokedTokenId> revoked) {
+        var withIds = revoked.stream().filter(r -> r.jti() != null).toList(); // Tokens issued before ids existed
+        withIds.forEach(this::apply);
+        if (!withIds.isEmpty()) {
+            tokenWriteBehindQueue.publish(withIds);
+        }
+    }
+
+    // Reloads the revoked tokens that have not expired yet, before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (RevokedTokenId revoked : tokenRepository.findAllRevokedTokenIds(Instant.now())) {
+            apply(revoked);
+        }
+        revocationTransport.subscribe(this::apply); // Also replays the cluster revocations still in force
+    }
+
+    private void apply(RevokedTokenId revoked) {
+        revoke(revoked.jti(), revoked.expiresAt().toEpochMilli());
+    }
+
+    // Drops the ids of tokens that expired anyway
+    @Scheduled(fixedDelayString = "${jwt.token-store.sweep-interval:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        revokedIds.values().removeIf(expiration -> expiration <= now);
+    }
+}
@@ -0,0 +1,15 @@
+package com.alibou.security.token;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+// Carries revoked token ids from the node that revoked them to every node of the cluster
+// Implementations deliver at least once and within a bounded delay; applying a revocation twice is harmless
+public interface RevocationTransport {
+
+    // Sends revocations to every node, this one included
+    void publish(Collection<RevokedTokenId> revocations);
+
+    // Registers the callback applying revocations, including the ones still in force when the node starts
+    void subscribe(Consumer<RevokedTokenId> listener);
+}
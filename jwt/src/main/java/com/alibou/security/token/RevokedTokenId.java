@@ -0,0 +1,7 @@
+package com.alibou.security.token;
+
+import java.time.Instant;
+
+// The id and expiration of a revoked token, all the denylist needs to know about it
+public record RevokedTokenId(String jti, Instant expiresAt) {
+}
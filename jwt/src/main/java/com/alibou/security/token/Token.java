@@ -7,19 +7,31 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_token_token", columnList = "token", unique = true), // Used by findByToken
+        @Index(name = "idx_token_expires_at", columnList = "expiresAt"), // Used by the purge job
+        @Index(name = "idx_token_jti", columnList = "jti") // Used to rotate refresh tokens
+})
 public class Token {
 
     @Id
     @GeneratedValue
     private Integer id;
 
+    @Column(length = 512)
     private String token;
 
+    private String jti; // The token id, used to revoke stateless tokens
+
+    private Instant expiresAt;
+
     @Enumerated(EnumType.STRING)
     private TokenType tokenType;
 
@@ -0,0 +1,46 @@
+package com.alibou.security.token;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+// Deletes expired and revoked tokens in batches, so the token table does not grow without bound
+// Revoked tokens are kept until they expire, because the denylist is reloaded from them at startup
+@Component
+@RequiredArgsConstructor
+public class TokenPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenPurgeJob.class);
+
+    private final TokenRepository tokenRepository;
+
+    private final TokenRevocationRepository tokenRevocationRepository;
+
+    @Value("${jwt.token-purge.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${jwt.token-purge.interval:3600000}")
+    public void purge() {
+        var now = Instant.now();
+        long purged = 0;
+        var ids = tokenRepository.findPurgeableTokenIds(now, PageRequest.of(0, batchSize));
+        while (!ids.isEmpty()) {
+            tokenRepository.deleteAllByIdInBatch(ids); // One DELETE ... WHERE id IN (...) per batch
+            purged += ids.size();
+            ids = tokenRepository.findPurgeableTokenIds(now, PageRequest.of(0, batchSize));
+        }
+        if (purged > 0) {
+            log.info("Purged {} expired or revoked tokens", purged);
+        }
+        int revocations = tokenRevocationRepository.deleteExpired(now); // Revocations of tokens that expired anyway
+        if (revocations > 0) {
+            log.info("Purged {} expired token revocations", revocations);
+        }
+    }
+}
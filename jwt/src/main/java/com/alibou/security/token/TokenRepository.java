@@ -1,21 +1,110 @@
 package com.alibou.security.token;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Integer> {
 
+    // Revokes every valid access token of a user in a single UPDATE statement, used by TokenWriteBehindQueue
+    // Refresh tokens are left alone, they are revoked by revokeRefreshTokensExpiringBefore or revokeRefreshTokensByUser
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Token t
+            SET t.expired = true, t.revoked = true
+            WHERE t.user.id = :userId AND t.tokenType = com.alibou.security.token.TokenType.BEARER
+            AND (t.expired = false OR t.revoked = false)
+            """)
+    int revokeAllValidTokensByUser(@Param("userId") Integer userId);
+
+    // Tokens past their expiration, or revoked tokens issued before expirations were stored
     @Query("""
-            SELECT t
-            FROM Token t 
-            INNER JOIN t.user u 
-            WHERE u.id = :userId AND (t.expired = false OR t.revoked = false)
+            SELECT t.id
+            FROM Token t
+            WHERE t.expiresAt < :now OR (t.expiresAt IS NULL AND (t.expired = true OR t.revoked = true))
             """)
-    List<Token> findAllValidTokensByUser(@Param("userId") Integer userId);
+    List<Integer> findPurgeableTokenIds(@Param("now") Instant now, Pageable pageable);
 
     Optional<Token> findByToken(String token);
 
+    Optional<Token> findByJti(String jti);
+
+    // Marks a refresh token as used (expired, but not revoked); returns 0 when it was already used or revoked,
+    // so two concurrent refreshes with the same token cannot both succeed
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Token t
+            SET t.expired = true
+            WHERE t.jti = :jti AND t.tokenType = com.alibou.security.token.TokenType.REFRESH
+            AND t.expired = false AND t.revoked = false
+            """)
+    int useRefreshToken(@Param("jti") String jti);
+
+    // Revokes every refresh token of a user at once, on logout and refresh token reuse
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Token t
+            SET t.revoked = true, t.expired = true
+            WHERE t.user.id = :userId AND t.tokenType = com.alibou.security.token.TokenType.REFRESH AND t.revoked = false
+            """)
+    int revokeRefreshTokensByUser(@Param("userId") Integer userId);
+
+    // Revokes the refresh tokens of a user's older sessions on login, used by TokenWriteBehindQueue
+    // Every refresh token lives equally long, so the new one's expiration separates it from the ones issued before
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Token t
+            SET t.revoked = true, t.expired = true
+            WHERE t.user.id = :userId AND t.tokenType = com.alibou.security.token.TokenType.REFRESH AND t.revoked = false
+            AND t.expiresAt < :before
+            """)
+    int revokeRefreshTokensExpiringBefore(@Param("userId") Integer userId, @Param("before") Instant before);
+
+    // Newest first, so a bounded warm-up keeps the tokens most likely to be used
+    @Query("""
+            SELECT new com.alibou.security.token.ValidTokenRow(t.token, t.user.id)
+            FROM Token t
+            WHERE t.expired = false AND t.revoked = false AND t.expiresAt > :now
+            AND t.tokenType = com.alibou.security.token.TokenType.BEARER
+            ORDER BY t.id DESC
+            """)
+    List<ValidTokenRow> findValidTokenRows(@Param("now") Instant now, Pageable pageable);
+
+    // One access token, when it is still valid; read on a miss of the in-memory index
+    @Query("""
+            SELECT new com.alibou.security.token.ValidTokenRow(t.token, t.user.id)
+            FROM Token t
+            WHERE t.token = :token AND t.expired = false AND t.revoked = false
+            AND t.tokenType = com.alibou.security.token.TokenType.BEARER
+            """)
+    Optional<ValidTokenRow> findValidTokenRow(@Param("token") String token);
+
+    @Query("""
+            SELECT new com.alibou.security.token.RevokedTokenId(t.jti, t.expiresAt)
+            FROM Token t
+            WHERE t.revoked = true AND t.jti IS NOT NULL AND t.expiresAt > :now
+            AND t.tokenType = com.alibou.security.token.TokenType.BEARER
+            """)
+    List<RevokedTokenId> findAllRevokedTokenIds(@Param("now") Instant now);
+
+    // Access tokens of a user still in force, including the ones issued by the other nodes
+    @Query("""
+            SELECT new com.alibou.security.token.RevokedTokenId(t.jti, t.expiresAt)
+            FROM Token t
+            WHERE t.user.id = :userId AND t.revoked = false AND t.jti IS NOT NULL AND t.expiresAt > :now
+            AND t.tokenType = com.alibou.security.token.TokenType.BEARER
+            """)
+    List<RevokedTokenId> findActiveTokenIdsByUser(@Param("userId") Integer userId, @Param("now") Instant now);
+
 }
@@ -0,0 +1,32 @@
+package com.alibou.security.token;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Append-only changelog of revoked token ids, read by every node in id order
+// Rows are only needed until the token they revoke expires, then the purge job deletes them
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "token_revocation", indexes = {
+        @Index(name = "idx_token_revocation_expires_at", columnList = "expiresAt") // Used at startup and by the purge job
+})
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // Monotonic, so nodes can resume after the last id they read
+    private Long id;
+
+    private String jti;
+
+    private Instant expiresAt;
+
+    private Instant revokedAt;
+}
@@ -0,0 +1,28 @@
+package com.alibou.security.token;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    List<TokenRevocation> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<TokenRevocation> findByIdBetweenOrderByIdAsc(Long from, Long to);
+
+    List<TokenRevocation> findByExpiresAtAfterOrderByIdAsc(Instant now);
+
+    @Query("SELECT MAX(r.id) FROM TokenRevocation r")
+    Long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,190 @@
+package com.alibou.security.token;
+
+import com.alibou.security.config.JwtService;
+import io.jsonwebtoken.JwtException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory index of the active tokens, so the request path rarely queries the token table
+// The table stays the source of truth: it is written behind every change, read at startup for the newest tokens,
+// and read again for a token the index does not know, e.g. one issued by another node; misses are cached briefly
+// Revoked tokens are removed here, and the JtiDenylist keeps them from being found again in a table not yet written
+@Component
+public class TokenStateStore implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenStateStore.class);
+
+    private static final int WARMUP_PAGE_SIZE = 1000;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final TokenRepository tokenRepository;
+
+    private final JwtService jwtService;
+
+    private final Map<String, ActiveToken> activeTokens = new ConcurrentHashMap<>(); // token hash -> token state
+
+    private final Map<Integer, Set<String>> tokensByUser = new ConcurrentHashMap<>(); // user id -> token hashes
+
+    private final Cache<String, Boolean> unknownTokens; // token hash -> not found in the table, for a short while
+
+    private final int warmupLimit;
+
+    public TokenStateStore(
+            TokenRepository tokenRepository,
+            JwtService jwtService,
+            // How long a token missing from the table is rejected without asking again
+            @Value("${jwt.token-store.negative-cache-ttl:PT5S}") Duration negativeCacheTtl,
+            @Value("${jwt.token-store.negative-cache-size:100000}") long negativeCacheSize,
+            // Newest valid tokens loaded at startup; older ones are read from the table on their first use
+            @Value("${jwt.token-store.warmup-limit:100000}") int warmupLimit
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.jwtService = jwtService;
+        this.unknownTokens = Caffeine.newBuilder()
+                .maximumSize(negativeCacheSize) // A flood of forged tokens cannot grow it without bound
+                .expireAfterWrite(negativeCacheTtl)
+                .build();
+        this.warmupLimit = warmupLimit;
+    }
+
+    // Checks if a token was issued by us and has been neither revoked nor expired
+    public boolean isActive(String token) {
+        var tokenHash = hash(token);
+        ActiveToken activeToken = activeTokens.get(tokenHash);
+        if (activeToken == null) {
+            activeToken = load(token, tokenHash);
+        }
+        return activeToken != null && activeToken.expiration() > System.currentTimeMillis();
+    }
+
+    // Marks a newly issued token as active until it expires
+    public void register(String token, Integer userId, String jti, long expiration) {
+        var tokenHash = hash(token);
+        unknownTokens.invalidate(tokenHash);
+        activeTokens.put(tokenHash, new ActiveToken(userId, jti, expiration));
+        tokensByUser.compute(userId, (id, tokenHashes) -> {
+            var hashes = tokenHashes != null ? tokenHashes : ConcurrentHashMap.<String>newKeySet();
+            hashes.add(tokenHash);
+            return hashes;
+        });
+    }
+
+    public void revoke(String token) {
+        var tokenHash = hash(token);
+        unknownTokens.put(tokenHash, Boolean.TRUE); // Until the revocation is written, the table still has it as valid
+        var activeToken = activeTokens.remove(tokenHash);
+        if (activeToken != null) {
+            removeFromUser(activeToken.userId(), tokenHash);
+        }
+    }
+
+    // Revokes every active token of a user, including the ones not written to the database yet
+    public List<ActiveToken> revokeAllForUser(Integer userId) {
+        var tokenHashes = tokensByUser.remove(userId);
+        if (tokenHashes == null) {
+            return List.of();
+        }
+        var revoked = new ArrayList<ActiveToken>(tokenHashes.size());
+        for (String tokenHash : tokenHashes) {
+            var activeToken = activeTokens.remove(tokenHash);
+            if (activeToken != null) {
+                revoked.add(activeToken);
+            }
+        }
+        return revoked;
+    }
+
+    // Warms the index with the newest valid tokens, page by page, before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        var now = Instant.now();
+        int loaded = 0;
+        for (int page = 0; loaded < warmupLimit; page++) {
+            var rows = tokenRepository.findValidTokenRows(
+                    now, PageRequest.of(page, Math.min(WARMUP_PAGE_SIZE, warmupLimit - loaded)));
+            rows.forEach(row -> register(row.token(), row.userId()));
+            loaded += rows.size();
+            if (rows.size() < WARMUP_PAGE_SIZE) {
+                break;
+            }
+        }
+        log.info("Loaded {} active tokens", loaded);
+    }
+
+    // Reads a token the index does not know; a token not found is rejected without a query for a while
+    private ActiveToken load(String token, String tokenHash) {
+        if (unknownTokens.getIfPresent(tokenHash) != null) {
+            return null;
+        }
+        var row = tokenRepository.findValidTokenRow(token);
+        if (row.isEmpty()) {
+            unknownTokens.put(tokenHash, Boolean.TRUE);
+            return null;
+        }
+        return register(row.get().token(), row.get().userId());
+    }
+
+    private ActiveToken register(String token, Integer userId) {
+        try {
+            var claims = jwtService.extractAllClaims(token);
+            register(token, userId, claims.getId(), claims.getExpiration().getTime());
+            return activeTokens.get(hash(token));
+        } catch (JwtException e) {
+            return null; // Expired, or signed with a key that is no longer accepted
+        }
+    }
+
+    // Drops the tokens that expired without being revoked
+    @Scheduled(fixedDelayString = "${jwt.token-store.sweep-interval:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        activeTokens.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiration() > now) {
+                return false;
+            }
+            removeFromUser(entry.getValue().userId(), entry.getKey());
+            return true;
+        });
+    }
+
+    private void removeFromUser(Integer userId, String tokenHash) {
+        tokensByUser.computeIfPresent(userId, (id, tokenHashes) -> {
+            tokenHashes.remove(tokenHash);
+            return tokenHashes.isEmpty() ? null : tokenHashes;
+        });
+    }
+
+    private static String hash(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    public record ActiveToken(Integer userId, String jti, long expiration) {
+    }
+}
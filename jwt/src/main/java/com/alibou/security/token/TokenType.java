@@ -1,5 +1,6 @@
 package com.alibou.security.token;
 
 public enum TokenType {
-    BEARER,
+    BEARER, // Short-lived access token, sent on every request
+    REFRESH, // Long-lived, only exchanged at /api/v1/auth/refresh, and rotated on every use
 }
@@ -0,0 +1,283 @@
+package com.alibou.security.token;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Persists token changes and publishes revocations in the background, so logins and logouts do not wait for the database
+// Changes are applied in the order they were queued, in batches flushed on size or time, and drained on shutdown
+// A failed batch is retried with backoff rather than dropped, as the token table is what the indexes reload from
+@Component
+public class TokenWriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenWriteBehindQueue.class);
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final TokenRepository tokenRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final RevocationTransport revocationTransport;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<TokenWrite> queue;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final long enqueueTimeoutNanos;
+
+    private final int maxRetries;
+
+    private final long initialBackoffMillis;
+
+    private final Thread flusher = new Thread(this::run, "token-write-behind");
+
+    private volatile boolean running = true;
+
+    public TokenWriteBehindQueue(
+            TokenRepository tokenRepository,
+            JdbcTemplate jdbcTemplate,
+            RevocationTransport revocationTransport,
+            TransactionTemplate transactionTemplate,
+            @Value("${jwt.token-write-behind.capacity:10000}") int capacity,
+            @Value("${jwt.token-write-behind.batch-size:100}") int batchSize,
+            @Value("${jwt.token-write-behind.flush-interval:200}") long flushIntervalMillis,
+            // How long a request waits for room in a full queue before it is answered with 503
+            @Value("${jwt.token-write-behind.enqueue-timeout:500}") long enqueueTimeoutMillis,
+            // Retries of a failed batch before looking for the changes that fail on their own, about a minute by default
+            @Value("${jwt.token-write-behind.max-retries:8}") int maxRetries,
+            @Value("${jwt.token-write-behind.initial-backoff:250}") long initialBackoffMillis
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.revocationTransport = revocationTransport;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new LinkedBlockingQueue<>(capacity); // Bounded, callers wait a little then give up when full
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.enqueueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMillis);
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    public void save(Token token) {
+        enqueue(new Insert(token));
+    }
+
+    public void revoke(String token) {
+        enqueue(new Revoke(token));
+    }
+
+    // Also tells the other nodes, which may have issued some of the access tokens
+    public void revokeAllForUser(Integer userId) {
+        enqueue(new RevokeAllForUser(userId));
+    }
+
+    public void revokeRefreshTokens(Integer userId, Instant expiringBefore) {
+        enqueue(new RevokeRefreshTokens(userId, expiringBefore));
+    }
+
+    public void publish(Collection<RevokedTokenId> revocations) {
+        enqueue(new Publish(List.copyOf(revocations)));
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Stops taking new batches and replays everything still pending before the database goes away
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(); // Lets the flusher finish the batch in hand
+        var pending = new ArrayList<TokenWrite>();
+        queue.drainTo(pending);
+        if (!pending.isEmpty()) {
+            log.info("Writing {} pending token changes before shutdown", pending.size());
+            flush(pending);
+        }
+    }
+
+    // Waits at most enqueueTimeout for room, so request threads cannot hang while the flusher is stuck retrying
+    private void enqueue(TokenWrite write) {
+        try {
+            if (!queue.offer(write, enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new TokenWritesOverloadedException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a token change", e);
+        }
+    }
+
+    private void run() {
+        var batch = new ArrayList<TokenWrite>(batchSize);
+        while (running) {
+            try {
+                var first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue; // Nothing to write, check whether we are stopping
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                // Wait for more changes until the batch is full or the flush interval is over
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false; // The batch in hand is written below, the rest by stop()
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Retries a failed batch with exponential backoff, holding back the changes queued after it to keep their order
+    // After maxRetries, the changes are written one by one: the ones the database keeps refusing while it accepts
+    // the others are dropped, and when it accepts none of them, it is down and the whole batch keeps being retried
+    private void flush(List<TokenWrite> batch) {
+        List<TokenWrite> pending = batch;
+        long backoffMillis = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeBatch(pending);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to write {} token changes (attempt {})", pending.size(), attempt, e);
+            }
+            boolean stopping = !running || Thread.currentThread().isInterrupted();
+            if (attempt > maxRetries || stopping) {
+                var failed = writeOneByOne(pending);
+                if (failed.isEmpty()) {
+                    return;
+                }
+                if (failed.size() < pending.size() || stopping) {
+                    // Refused one by one, or the application is stopping: nothing more can be done for them
+                    log.error("Dropped {} token changes: {}", failed.size(), kinds(failed));
+                    return;
+                }
+                pending = failed;
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Stopping: one last attempt above, without waiting
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    // Writes each change in its own transaction and returns the ones that failed
+    private List<TokenWrite> writeOneByOne(List<TokenWrite> writes) {
+        var failed = new ArrayList<TokenWrite>();
+        for (TokenWrite write : writes) {
+            try {
+                writeBatch(List.of(write));
+            } catch (RuntimeException e) {
+                failed.add(write);
+            }
+        }
+        return failed;
+    }
+
+    // Only the kind of each change is logged, as the changes carry raw tokens
+    private static List<String> kinds(List<TokenWrite> writes) {
+        return writes.stream().map(write -> write.getClass().getSimpleName()).toList();
+    }
+
+    private void writeBatch(List<TokenWrite> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Consecutive changes of the same kind share one JDBC batch, and the order between kinds is kept,
+            // so a token inserted before a "revoke all" is revoked by it
+            int start = 0;
+            while (start < batch.size()) {
+                int end = start + 1;
+                while (end < batch.size() && batch.get(end).getClass() == batch.get(start).getClass()) {
+                    end++;
+                }
+                write(batch.subList(start, end));
+                start = end;
+            }
+        });
+    }
+
+    private void write(List<TokenWrite> writes) {
+        if (writes.get(0) instanceof Insert) {
+            // Batched by Hibernate (hibernate.jdbc.batch_size), then flushed before the next UPDATE runs
+            tokenRepository.saveAllAndFlush(writes.stream().map(write -> ((Insert) write).token()).toList());
+        } else if (writes.get(0) instanceof Revoke) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE token SET expired = true, revoked = true WHERE token = ?",
+                    writes.stream().map(write -> new Object[]{((Revoke) write).token()}).toList()
+            );
+        } else if (writes.get(0) instanceof RevokeAllForUser) {
+            // One bulk UPDATE per user; there is at most one per login, so batching them would gain little
+            // The ids are read first, in the same transaction, as the UPDATE hides which tokens it revoked
+            var now = Instant.now();
+            for (TokenWrite write : writes) {
+                var userId = ((RevokeAllForUser) write).userId();
+                var revoked = tokenRepository.findActiveTokenIdsByUser(userId, now);
+                tokenRepository.revokeAllValidTokensByUser(userId);
+                revocationTransport.publish(revoked);
+            }
+        } else if (writes.get(0) instanceof RevokeRefreshTokens) {
+            writes.forEach(write -> {
+                var revoke = (RevokeRefreshTokens) write;
+                tokenRepository.revokeRefreshTokensExpiringBefore(revoke.userId(), revoke.expiringBefore());
+            });
+        } else {
+            revocationTransport.publish(writes.stream()
+                    .flatMap(write -> ((Publish) write).revocations().stream())
+                    .toList());
+        }
+    }
+
+    private sealed interface TokenWrite permits Insert, Revoke, RevokeAllForUser, RevokeRefreshTokens, Publish {
+    }
+
+    private record Insert(Token token) implements TokenWrite {
+    }
+
+    private record Revoke(String token) implements TokenWrite {
+    }
+
+    private record RevokeAllForUser(Integer userId) implements TokenWrite {
+    }
+
+    private record RevokeRefreshTokens(Integer userId, Instant expiringBefore) implements TokenWrite {
+    }
+
+    private record Publish(List<RevokedTokenId> revocations) implements TokenWrite {
+    }
+}
@@ -0,0 +1,9 @@
+package com.alibou.security.token;
+
+// Thrown when the token write-behind queue stays full, e.g. while the database is down; the client should retry later
+public class TokenWritesOverloadedException extends RuntimeException {
+
+    public TokenWritesOverloadedException() {
+        super("Token changes cannot be saved right now, retry later");
+    }
+}
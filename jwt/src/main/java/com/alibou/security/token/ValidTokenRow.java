@@ -0,0 +1,5 @@
+package com.alibou.security.token;
+
+// A valid token and its owner, read at startup to warm the TokenStateStore
+public record ValidTokenRow(String token, Integer userId) {
+}
@@ -1,7 +1,19 @@
 package com.alibou.security.user;
 
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
 public enum Role {
 
     USER,
-    ADMIN
+    ADMIN;
+
+    // Built once per role and shared by every user and request, as authorities are immutable
+    private final List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(name()));
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
 }
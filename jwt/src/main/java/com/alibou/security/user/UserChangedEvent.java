@@ -0,0 +1,10 @@
+package com.alibou.security.user;
+
+// Published when a user is registered, updated or has their tokens revoked
+// previousEmail is set when the email itself changed, so the entry cached under the old email goes too
+public record UserChangedEvent(String email, String previousEmail) {
+
+    public UserChangedEvent(String email) {
+        this(email, null);
+    }
+}
@@ -0,0 +1,37 @@
+package com.alibou.security.user;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+// Publishes a UserChangedEvent for every write to the _user table, e.g. a role change
+@Component
+@RequiredArgsConstructor
+public class UserEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Remembers the email the row has in the database, to tell an email change apart on the next update
+    @PostLoad
+    public void onLoad(User user) {
+        user.setPersistedEmail(user.getEmail());
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        var previousEmail = user.getPersistedEmail();
+        eventPublisher.publishEvent(new UserChangedEvent(
+                user.getEmail(),
+                Objects.equals(previousEmail, user.getEmail()) ? null : previousEmail
+        ));
+        user.setPersistedEmail(user.getEmail());
+    }
+}
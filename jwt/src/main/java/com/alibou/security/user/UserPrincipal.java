@@ -0,0 +1,68 @@
+package com.alibou.security.user;
+
+import com.alibou.security.config.JwtService;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+// Immutable snapshot of the fields the request path needs from a User
+// Holds no password and no tokens, so it is cheap to cache and safe to share between threads
+public record UserPrincipal(
+        Integer id,
+        String email,
+        Role role,
+        Collection<? extends GrantedAuthority> authorities
+) implements UserDetails {
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getAuthorities());
+    }
+
+    // Builds the principal from verified claims, without loading the user
+    public static UserPrincipal from(Claims claims) {
+        var role = Role.valueOf(claims.get(JwtService.ROLE_CLAIM, String.class));
+        return new UserPrincipal(
+                claims.get(JwtService.USER_ID_CLAIM, Integer.class),
+                claims.getSubject(),
+                role,
+                role.getAuthorities()
+        );
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
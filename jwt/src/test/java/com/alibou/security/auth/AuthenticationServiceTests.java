@@ -0,0 +1,156 @@
+package com.alibou.security.auth;
+
+import com.alibou.security.config.AuthMetrics;
+import com.alibou.security.config.AuthRateLimiter;
+import com.alibou.security.config.JwtClaimsCache;
+import com.alibou.security.config.JwtKeyRing;
+import com.alibou.security.config.JwtService;
+import com.alibou.security.token.JtiDenylist;
+import com.alibou.security.token.RevocationTransport;
+import com.alibou.security.token.Token;
+import com.alibou.security.token.TokenRepository;
+import com.alibou.security.token.TokenStateStore;
+import com.alibou.security.token.TokenType;
+import com.alibou.security.token.TokenWriteBehindQueue;
+import com.alibou.security.user.Role;
+import com.alibou.security.user.User;
+import com.alibou.security.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthenticationServiceTests {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final TokenRepository tokenRepository = mock(TokenRepository.class);
+
+    private final TokenWriteBehindQueue tokenWriteBehindQueue = mock(TokenWriteBehindQueue.class);
+
+    private final JwtService jwtService = new JwtService(
+            new JwtClaimsCache(1_000),
+            new JwtKeyRing(JwtKeyRing.hmacKey("primary", SECRET)),
+            new AuthMetrics(new SimpleMeterRegistry(), 0),
+            Duration.ofMinutes(5),
+            Duration.ofDays(7));
+
+    private final TokenStateStore tokenStateStore =
+            new TokenStateStore(tokenRepository, jwtService, Duration.ofSeconds(5), 1_000, 1_000);
+
+    private final JtiDenylist jtiDenylist =
+            new JtiDenylist(tokenRepository, mock(RevocationTransport.class), tokenWriteBehindQueue);
+
+    private final User user = User.builder()
+            .id(1)
+            .email("user@mail.com")
+            .password("password")
+            .role(Role.USER)
+            .build();
+
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        authenticationService = new AuthenticationService(
+                userRepository,
+                tokenWriteBehindQueue,
+                tokenRepository,
+                tokenStateStore,
+                jtiDenylist,
+                mock(PasswordEncoder.class),
+                jwtService,
+                mock(AuthenticationManager.class),
+                mock(ApplicationEventPublisher.class),
+                new AuthMetrics(new SimpleMeterRegistry(), 0),
+                mock(AuthRateLimiter.class));
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void refreshRotatesAValidRefreshToken() {
+        var refreshToken = jwtService.generateRefreshToken(user);
+        var jti = jwtService.extractRefreshClaims(refreshToken).getId();
+        when(tokenRepository.useRefreshToken(jti)).thenReturn(1);
+
+        var response = authenticationService.refresh(new RefreshTokenRequest(refreshToken));
+
+        assertThat(response.getRefreshToken()).isNotEqualTo(refreshToken);
+        assertThat(tokenStateStore.isActive(response.getToken())).isTrue();
+        verify(tokenRepository).save(any(Token.class)); // The new refresh token, before the response is sent
+        verify(tokenRepository, never()).revokeRefreshTokensByUser(any());
+    }
+
+    @Test
+    void reusingARotatedRefreshTokenRevokesTheWholeFamily() {
+        // A session the user is still using, through its access token
+        var accessToken = jwtService.generateToken(user);
+        var accessClaims = jwtService.extractAllClaims(accessToken);
+        tokenStateStore.register(accessToken, user.getId(), accessClaims.getId(), accessClaims.getExpiration().getTime());
+        // An older refresh token of the same session, rotated already, presented again
+        var rotated = jwtService.generateRefreshToken(user);
+        var jti = jwtService.extractRefreshClaims(rotated).getId();
+        when(tokenRepository.useRefreshToken(jti)).thenReturn(0);
+        when(tokenRepository.findByJti(jti)).thenReturn(Optional.of(refreshToken(user, jti, false)));
+
+        assertThatThrownBy(() -> authenticationService.refresh(new RefreshTokenRequest(rotated)))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token already used");
+
+        // Every refresh token of the user, before the answer; then every access token, here at once
+        // and in the table and on the other nodes through the queue
+        verify(tokenRepository).revokeRefreshTokensByUser(user.getId());
+        assertThat(jtiDenylist.isRevoked(accessClaims.getId())).isTrue();
+        verify(tokenWriteBehindQueue).revokeAllForUser(user.getId());
+    }
+
+    @Test
+    void aRevokedRefreshTokenIsRejectedWithoutEndingTheOtherSessions() {
+        var revoked = jwtService.generateRefreshToken(user);
+        var jti = jwtService.extractRefreshClaims(revoked).getId();
+        when(tokenRepository.useRefreshToken(jti)).thenReturn(0);
+        when(tokenRepository.findByJti(jti)).thenReturn(Optional.of(refreshToken(user, jti, true)));
+
+        assertThatThrownBy(() -> authenticationService.refresh(new RefreshTokenRequest(revoked)))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessage("Refresh token revoked");
+
+        verify(tokenRepository, never()).revokeRefreshTokensByUser(any());
+        verify(tokenWriteBehindQueue, never()).revokeAllForUser(any());
+    }
+
+    @Test
+    void anAccessTokenIsNotAcceptedAsARefreshToken() {
+        var accessToken = jwtService.generateToken(user);
+
+        assertThatThrownBy(() -> authenticationService.refresh(new RefreshTokenRequest(accessToken)))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+
+        verify(tokenRepository, never()).useRefreshToken(any());
+    }
+
+    private static Token refreshToken(User user, String jti, boolean revoked) {
+        return Token.builder()
+                .user(user)
+                .jti(jti)
+                .tokenType(TokenType.REFRESH)
+                .revoked(revoked)
+                .expired(true)
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.alibou.security.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthRateLimiterTests {
+
+    @Test
+    void grantsABurstOfCapacityThenRefuses() {
+        var limiter = limiter(5, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquireForClient("10.0.0.1")).isZero();
+        }
+        assertThat(limiter.tryAcquireForClient("10.0.0.1")).isPositive();
+        assertThat(limiter.tryAcquireForClient("10.0.0.2")).isZero(); // Every address has its own bucket
+    }
+
+    @Test
+    void retryAfterIsTheTimeUntilOneTokenRefillsInWholeSeconds() {
+        var limiter = limiter(5, Duration.ofMinutes(1)); // One token every 12 seconds
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquireForClient("10.0.0.1");
+        }
+
+        assertThat(limiter.tryAcquireForClient("10.0.0.1")).isEqualTo(12);
+    }
+
+    @Test
+    void retryAfterIsAtLeastOneSecond() {
+        var limiter = limiter(2, Duration.ofMillis(200)); // One token every 100 ms
+
+        limiter.tryAcquireForClient("10.0.0.1");
+        limiter.tryAcquireForClient("10.0.0.1");
+
+        assertThat(limiter.tryAcquireForClient("10.0.0.1")).isEqualTo(1);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() throws InterruptedException {
+        var limiter = limiter(2, Duration.ofMillis(200)); // One token every 100 ms
+
+        assertThat(limiter.tryAcquireForClient("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquireForClient("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquireForClient("10.0.0.1")).isPositive();
+
+        Thread.sleep(150);
+
+        assertThat(limiter.tryAcquireForClient("10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquireForClient("10.0.0.1")).isPositive(); // Only one token came back
+    }
+
+    @Test
+    void refusedAttemptsDoNotPushTheRefillBack() {
+        var limiter = limiter(5, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquireForClient("10.0.0.1");
+        }
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquireForClient("10.0.0.1")).isEqualTo(12);
+        }
+    }
+
+    @Test
+    void countsAccountsByCaseInsensitiveEmail() {
+        var limiter = limiter(2, Duration.ofMinutes(1));
+
+        limiter.checkAccount("User@Mail.com");
+        limiter.checkAccount("user@mail.com");
+
+        assertThatThrownBy(() -> limiter.checkAccount("USER@MAIL.COM"))
+                .isInstanceOfSatisfying(RateLimitExceededException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(30));
+    }
+
+    @Test
+    void grantsEverythingWhenDisabled() {
+        var limiter = new AuthRateLimiter(false, 1, Duration.ofMinutes(1), 1, Duration.ofMinutes(1), 1_000);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquireForClient("10.0.0.1")).isZero();
+            assertThat(limiter.tryAcquireForAccount("user@mail.com")).isZero();
+        }
+    }
+
+    @Test
+    void rejectsLimitsThatCouldNeverGrantAToken() {
+        assertThatIllegalArgumentException().isThrownBy(() -> limiter(0, Duration.ofMinutes(1)));
+        assertThatIllegalArgumentException().isThrownBy(() -> limiter(-1, Duration.ofMinutes(1)));
+        assertThatIllegalArgumentException().isThrownBy(() -> limiter(5, Duration.ZERO));
+        assertThatIllegalArgumentException().isThrownBy(
+                () -> new AuthRateLimiter(true, 20, Duration.ofMinutes(1), 0, Duration.ofMinutes(1), 1_000));
+    }
+
+    private static AuthRateLimiter limiter(int capacity, Duration refillPeriod) {
+        return new AuthRateLimiter(true, capacity, refillPeriod, capacity, refillPeriod, 1_000);
+    }
+}
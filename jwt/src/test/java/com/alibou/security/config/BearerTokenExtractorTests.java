@@ -0,0 +1,124 @@
+package com.alibou.security.config;
+
+import com.alibou.security.config.AuthMetrics.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BearerTokenExtractorTests {
+
+    private static final String HEADER = "{\"alg\":\"HS256\",\"typ\":\"JWT\"}";
+
+    private static final long PAST = 1_000_000_000L; // 2001, in seconds like exp
+
+    private static final long FUTURE = 32_503_680_000L; // 3000
+
+    private final BearerTokenExtractor extractor = new BearerTokenExtractor(4096);
+
+    @Test
+    void acceptsAWellFormedUnexpiredToken() {
+        assertThat(extractor.check(bearer("{\"sub\":\"a@mail.com\",\"exp\":" + FUTURE + "}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.token("Bearer a.b.c")).isEqualTo("a.b.c");
+    }
+
+    @Test
+    void reportsMissingHeadersAndOtherSchemesAsNoToken() {
+        assertThat(extractor.check(null)).isEqualTo(Outcome.NO_TOKEN);
+        assertThat(extractor.check("Basic dXNlcjpwYXNz")).isEqualTo(Outcome.NO_TOKEN);
+        assertThat(extractor.check("bearer a.b.c")).isEqualTo(Outcome.NO_TOKEN);
+    }
+
+    @Test
+    void rejectsTokensWithoutThreeNonEmptySegments() {
+        assertThat(extractor.check("Bearer ")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc.def")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer .def.ghi")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc..ghi")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc.def.")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc.def.ghi.jkl")).isEqualTo(Outcome.MALFORMED);
+    }
+
+    @Test
+    void rejectsPaddingAndCharactersOutsideTheBase64UrlAlphabet() {
+        assertThat(extractor.check("Bearer abc=.def.ghi")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc.def.ghi==")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer ab+c.def.ghi")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer ab/c.def.ghi")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc.d\u00e9f.ghi")).isEqualTo(Outcome.MALFORMED);
+    }
+
+    @Test
+    void rejectsWhitespaceInsideOrAroundTheToken() {
+        assertThat(extractor.check("Bearer  abc.def.ghi")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc.def.ghi ")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc.d ef.ghi")).isEqualTo(Outcome.MALFORMED);
+        assertThat(extractor.check("Bearer abc.def.ghi\n")).isEqualTo(Outcome.MALFORMED);
+    }
+
+    @Test
+    void rejectsTokensLongerThanTheLimitUnread() {
+        var limited = new BearerTokenExtractor(11);
+
+        assertThat(limited.check("Bearer abc.def.ghi")).isEqualTo(Outcome.VALID); // 11 characters
+        assertThat(limited.check("Bearer abc.def.ghij")).isEqualTo(Outcome.MALFORMED);
+    }
+
+    @Test
+    void reportsATopLevelExpInThePastAsExpired() {
+        assertThat(extractor.check(bearer("{\"exp\":" + PAST + "}"))).isEqualTo(Outcome.EXPIRED);
+        assertThat(extractor.check(bearer("{\"sub\":\"a\",\"exp\":" + PAST + ",\"iat\":1}"))).isEqualTo(Outcome.EXPIRED);
+    }
+
+    @Test
+    void readsExpAcrossJsonWhitespace() {
+        assertThat(extractor.check(bearer("{ \"exp\" : " + PAST + " }"))).isEqualTo(Outcome.EXPIRED);
+        assertThat(extractor.check(bearer("{\n\t\"exp\":\r\n" + PAST + "\n}"))).isEqualTo(Outcome.EXPIRED);
+    }
+
+    @Test
+    void ignoresExpKeysThatAreNestedEscapedOrInsideStrings() {
+        assertThat(extractor.check(bearer("{\"ctx\":{\"exp\":" + PAST + "}}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"aud\":[{\"exp\":" + PAST + "}]}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"e\\u0078p\":" + PAST + "}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"note\":\"\\\"exp\\\":" + PAST + "\"}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"expires\":" + PAST + ",\"ex\":" + PAST + "}"))).isEqualTo(Outcome.VALID);
+    }
+
+    @Test
+    void readsOnlyTheTopLevelExpWhenANestedOneComesFirst() {
+        assertThat(extractor.check(bearer("{\"ctx\":{\"exp\":" + FUTURE + "},\"exp\":" + PAST + "}")))
+                .isEqualTo(Outcome.EXPIRED);
+        assertThat(extractor.check(bearer("{\"ctx\":{\"exp\":" + PAST + "},\"exp\":" + FUTURE + "}")))
+                .isEqualTo(Outcome.VALID);
+    }
+
+    @Test
+    void leavesMissingAndNonNumericExpToSignatureVerification() {
+        assertThat(extractor.check(bearer("{\"sub\":\"a@mail.com\"}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"exp\":\"" + PAST + "\"}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"exp\":" + PAST + ".5}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"exp\":-" + PAST + "}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"exp\":null}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"exp\":}"))).isEqualTo(Outcome.VALID);
+    }
+
+    @Test
+    void neverOverflowsOnVeryLargeExp() {
+        // Past 13 digits the value is left to jjwt rather than wrapped around to a date in the past
+        assertThat(extractor.check(bearer("{\"exp\":" + Long.MAX_VALUE + "}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"exp\":99999999999999999999999}"))).isEqualTo(Outcome.VALID);
+        assertThat(extractor.check(bearer("{\"exp\":1000000000000}"))).isEqualTo(Outcome.VALID);
+    }
+
+    private static String bearer(String payload) {
+        return "Bearer " + encode(HEADER) + "." + encode(payload) + ".c2lnbmF0dXJl";
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
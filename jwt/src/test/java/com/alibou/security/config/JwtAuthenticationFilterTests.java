@@ -0,0 +1,108 @@
+package com.alibou.security.config;
+
+import com.alibou.security.token.JtiDenylist;
+import com.alibou.security.token.RevocationTransport;
+import com.alibou.security.token.TokenRepository;
+import com.alibou.security.token.TokenStateStore;
+import com.alibou.security.token.TokenWriteBehindQueue;
+import com.alibou.security.user.Role;
+import com.alibou.security.user.User;
+import com.alibou.security.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTests {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final User user = User.builder()
+            .id(1)
+            .email("user@mail.com")
+            .password("password")
+            .role(Role.USER)
+            .build();
+
+    private JwtService jwtService;
+
+    private TokenStateStore tokenStateStore;
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        var userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        var tokenRepository = mock(TokenRepository.class);
+        var metrics = new AuthMetrics(new SimpleMeterRegistry(), 0);
+        jwtService = new JwtService(
+                new JwtClaimsCache(1_000),
+                new JwtKeyRing(JwtKeyRing.hmacKey("primary", SECRET)),
+                metrics,
+                Duration.ofMinutes(5),
+                Duration.ofDays(7));
+        tokenStateStore = new TokenStateStore(tokenRepository, jwtService, Duration.ofSeconds(5), 1_000, 1_000);
+        filter = new JwtAuthenticationFilter(
+                jwtService,
+                new BearerTokenExtractor(4096),
+                new CachedUserDetailsService(userRepository, new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(10)),
+                tokenStateStore,
+                new JtiDenylist(tokenRepository, mock(RevocationTransport.class), mock(TokenWriteBehindQueue.class)),
+                metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void authenticatesAnAccessToken(boolean stateless) throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessEnabled", stateless);
+        var accessToken = jwtService.generateToken(user);
+        var claims = jwtService.extractAllClaims(accessToken);
+        tokenStateStore.register(accessToken, user.getId(), claims.getId(), claims.getExpiration().getTime());
+
+        var chain = filter(accessToken);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(user.getEmail());
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void rejectsARefreshTokenUsedAsAnAccessToken(boolean stateless) throws Exception {
+        ReflectionTestUtils.setField(filter, "statelessEnabled", stateless);
+        // Validly signed, unexpired and issued to a known user: only its token_use claim sets it apart
+        var refreshToken = jwtService.generateRefreshToken(user);
+
+        var chain = filter(refreshToken);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull(); // Passed on unauthenticated, so the endpoint answers 403
+    }
+
+    private MockFilterChain filter(String token) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/v1/demo-controller");
+        request.addHeader("Authorization", "Bearer " + token);
+        var chain = new MockFilterChain();
+        filter.doFilterInternal(request, new MockHttpServletResponse(), chain);
+        return chain;
+    }
+}
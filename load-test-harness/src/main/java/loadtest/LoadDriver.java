@@ -0,0 +1,239 @@
+package loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+// Drives a weighted mix of requests from closed-loop clients and records each latency in an HDR histogram
+// Latencies are recorded in microseconds and reported in milliseconds
+public final class LoadDriver {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final LoadSettings settings;
+
+    public LoadDriver(LoadSettings settings) {
+        this.settings = settings;
+    }
+
+    // One kind of request; the function builds the request sent by the given client
+    public record Scenario(String name, int weight, IntFunction<HttpRequest> request) {
+    }
+
+    public Report run(List<Scenario> scenarios) throws InterruptedException {
+        var active = scenarios.stream().filter(scenario -> scenario.weight() > 0).toList();
+        int totalWeight = active.stream().mapToInt(Scenario::weight).sum();
+        var recorders = new LinkedHashMap<String, Recorder>();
+        var errors = new LinkedHashMap<String, LongAdder>();
+        for (Scenario scenario : active) {
+            recorders.put(scenario.name(), new Recorder(3));
+            errors.put(scenario.name(), new LongAdder());
+        }
+
+        var running = new AtomicBoolean(true);
+        var measuring = new AtomicBoolean(false);
+        ExecutorService clients = Executors.newFixedThreadPool(settings.clients());
+        for (int i = 0; i < settings.clients(); i++) {
+            int clientId = i;
+            clients.execute(() -> {
+                while (running.get()) {
+                    Scenario scenario = pick(active, totalWeight);
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = send(scenario.request().apply(clientId));
+                    } catch (IOException e) {
+                        ok = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (measuring.get()) {
+                        recorders.get(scenario.name()).recordValue((System.nanoTime() - start) / 1_000);
+                        if (!ok) {
+                            errors.get(scenario.name()).increment();
+                        }
+                    }
+                }
+            });
+        }
+
+        Thread.sleep(settings.warmup().toMillis());
+        recorders.values().forEach(Recorder::reset); // Drops what was recorded by requests still in flight
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(settings.duration().toMillis());
+        measuring.set(false);
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        running.set(false);
+        clients.shutdown();
+        clients.awaitTermination(30, TimeUnit.SECONDS);
+
+        var latencies = new LinkedHashMap<String, Histogram>();
+        var errorCounts = new LinkedHashMap<String, Long>();
+        recorders.forEach((name, recorder) -> latencies.put(name, recorder.getIntervalHistogram()));
+        errors.forEach((name, count) -> errorCounts.put(name, count.sum()));
+        return new Report(latencies, errorCounts, elapsed);
+    }
+
+    private boolean send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        return response.statusCode() < 400;
+    }
+
+    private static Scenario pick(List<Scenario> scenarios, int totalWeight) {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            roll -= scenario.weight();
+            if (roll < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    public record Report(Map<String, Histogram> latencies, Map<String, Long> errors, Duration elapsed) {
+
+        public Histogram overall() {
+            var overall = new Histogram(3);
+            latencies.values().forEach(overall::add);
+            return overall;
+        }
+
+        public double throughput() {
+            return overall().getTotalCount() / (elapsed.toNanos() / 1e9);
+        }
+
+        public double errorRate() {
+            long total = overall().getTotalCount();
+            long failed = errors.values().stream().mapToLong(Long::longValue).sum();
+            return total == 0 ? 1.0 : (double) failed / total;
+        }
+
+        public double p99Millis() {
+            return overall().getValueAtPercentile(99) / 1_000.0;
+        }
+
+        public void print(String title, PrintStream out) {
+            out.printf("%n=== %s: %.1f req/s over %ds, error rate %.4f ===%n",
+                    title, throughput(), elapsed.toSeconds(), errorRate());
+            out.printf("%-14s %10s %8s %8s %8s %8s %8s %8s%n",
+                    "scenario", "requests", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            latencies.forEach((name, histogram) -> printRow(out, name, histogram, errors.get(name)));
+            printRow(out, "overall", overall(), errors.values().stream().mapToLong(Long::longValue).sum());
+            var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            out.printf("heap used %d MB of %d MB committed, %d live threads%n",
+                    heap.getUsed() >> 20, heap.getCommitted() >> 20, ManagementFactory.getThreadMXBean().getThreadCount());
+            out.println("Overall latency distribution (ms):");
+            overall().outputPercentileDistribution(out, 1_000.0);
+        }
+
+        // Fails on the absolute thresholds, then on a regression against the stored baseline of the test, if any
+        // The results always go to build/loadtest/<test>.properties, and to the baseline with -Ploadtest.record-baseline=true
+        public void verify(String test, LoadSettings settings, PrintStream out) {
+            var failures = new ArrayList<String>();
+            if (errorRate() > settings.maxErrorRate()) {
+                failures.add(String.format("error rate %.4f above %.4f", errorRate(), settings.maxErrorRate()));
+            }
+            if (p99Millis() > settings.maxP99Millis()) {
+                failures.add(String.format("p99 %.2f ms above %.2f ms", p99Millis(), settings.maxP99Millis()));
+            }
+            if (throughput() < settings.minThroughput()) {
+                failures.add(String.format("throughput %.1f req/s below %.1f", throughput(), settings.minThroughput()));
+            }
+            var baselineFile = settings.baselineDir().resolve(test + ".properties");
+            var baseline = read(baselineFile);
+            if (baseline == null) {
+                out.printf("No baseline at %s, only the absolute thresholds apply%n", baselineFile);
+            } else {
+                double baselineP99 = Double.parseDouble(baseline.getProperty("p99-millis"));
+                double baselineThroughput = Double.parseDouble(baseline.getProperty("throughput"));
+                out.printf("Baseline: p99 %.2f ms, %.1f req/s; allowed regression %.0f%%%n",
+                        baselineP99, baselineThroughput, settings.maxRegression() * 100);
+                if (p99Millis() > baselineP99 * (1 + settings.maxRegression())) {
+                    failures.add(String.format("p99 %.2f ms regressed from the baseline %.2f ms", p99Millis(), baselineP99));
+                }
+                if (throughput() < baselineThroughput * (1 - settings.maxRegression())) {
+                    failures.add(String.format("throughput %.1f req/s regressed from the baseline %.1f req/s",
+                            throughput(), baselineThroughput));
+                }
+            }
+            write(Path.of("build", "loadtest", test + ".properties"));
+            if (settings.recordBaseline()) {
+                write(baselineFile);
+                out.printf("Recorded as the new baseline in %s%n", baselineFile);
+            }
+            if (!failures.isEmpty()) {
+                throw new AssertionError(test + ": " + String.join("; ", failures));
+            }
+        }
+
+        private static Properties read(Path file) {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            var properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return properties;
+        }
+
+        private void write(Path file) {
+            var properties = new Properties();
+            properties.setProperty("p99-millis", String.format(Locale.ROOT, "%.3f", p99Millis()));
+            properties.setProperty("throughput", String.format(Locale.ROOT, "%.1f", throughput()));
+            properties.setProperty("error-rate", String.format(Locale.ROOT, "%.5f", errorRate()));
+            try {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                try (Writer writer = Files.newBufferedWriter(file)) {
+                    properties.store(writer, "Load test results; compared by p99-millis and throughput");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void printRow(PrintStream out, String name, Histogram histogram, long errors) {
+            out.printf("%-14s %10d %8d %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    name,
+                    histogram.getTotalCount(),
+                    errors,
+                    histogram.getValueAtPercentile(50) / 1_000.0,
+                    histogram.getValueAtPercentile(90) / 1_000.0,
+                    histogram.getValueAtPercentile(99) / 1_000.0,
+                    histogram.getValueAtPercentile(99.9) / 1_000.0,
+                    histogram.getMaxValue() / 1_000.0);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Load test knobs, read from system properties so they can be passed as -Ploadtest.<name>=<value>
+// Shared by the load tests of both projects; each passes its own default thresholds
+public record LoadSettings(
+        int clients, // Concurrent closed-loop clients
+        Duration warmup, // Load applied before measuring, so JIT and caches are warm
+        Duration duration, // Measured load
+        double maxP99Millis, // Fails the run when the overall p99 latency is higher
+        double minThroughput, // Fails the run when fewer requests per second complete
+        double maxErrorRate, // Fails the run when a larger share of requests fails
+        Path baselineDir, // Stored results of a reference run, one <test>.properties file per test
+        double maxRegression, // Fails the run when p99 or throughput is this much worse than the baseline, 0.25 = 25%
+        boolean recordBaseline // Stores the results of this run as the new baseline
+) {
+
+    public static LoadSettings fromSystemProperties(double defaultMaxP99Millis, double defaultMinThroughput) {
+        return new LoadSettings(
+                Integer.getInteger("loadtest.clients", 32),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 5)),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 20)),
+                doubleProperty("loadtest.max-p99-millis", defaultMaxP99Millis),
+                doubleProperty("loadtest.min-throughput", defaultMinThroughput),
+                doubleProperty("loadtest.max-error-rate", 0.01),
+                Path.of(System.getProperty("loadtest.baseline-dir", "src/loadTest/baselines")), // From the project dir
+                doubleProperty("loadtest.max-regression", 0.25),
+                Boolean.getBoolean("loadtest.record-baseline")
+        );
+    }
+
+    // Relative weight of a scenario in the request mix, e.g. -Ploadtest.mix.login=20
+    public static int weight(String scenario, int defaultWeight) {
+        return Integer.getInteger("loadtest.mix." + scenario, defaultWeight);
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}